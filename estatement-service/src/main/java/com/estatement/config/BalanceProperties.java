@@ -0,0 +1,36 @@
+package com.estatement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.balance")
+public class BalanceProperties {
+
+    public enum Strategy {
+        // Load the transactions into the JVM, sort and save them back
+        JVM,
+        // Let MySQL compute running balances with a window function in a single UPDATE
+        SQL
+    }
+
+    // How full (non-incremental) balance recalculations are carried out
+    private Strategy strategy = Strategy.SQL;
+
+    // Worker threads of the parallel rebuild; capped by the connection pool size minus the reserve
+    private int rebuildParallelism = 4;
+
+    // Connections left for request traffic while a rebuild is running
+    private int rebuildConnectionReserve = 2;
+
+    // Persist the rebuild checkpoint after this many accounts
+    private int rebuildCheckpointInterval = 500;
+
+    // In-application locks accounts are hashed onto before their balances are recalculated
+    private int lockStripes = 256;
+
+    // How long a recalculation waits for its account's lock before it fails
+    private long lockTimeoutMs = 60000;
+}
@@ -0,0 +1,58 @@
+package com.estatement.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@RequiredArgsConstructor
+public class IngestionExecutorConfig {
+
+    private final IngestionProperties ingestionProperties;
+
+    /**
+     * Bounded pool for background upload processing.
+     * When all workers are busy and the queue is full, submissions are rejected instead of piling up.
+     */
+    @Bean(name = "ingestionExecutor")
+    public ThreadPoolTaskExecutor ingestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ingestionProperties.getJobConcurrency());
+        executor.setMaxPoolSize(ingestionProperties.getJobConcurrency());
+        executor.setQueueCapacity(ingestionProperties.getJobQueueCapacity());
+        executor.setThreadNamePrefix("ingest-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Workers for the files of batch uploads, shared by all batches so that concurrent batches together
+     * never ingest more than app.ingestion.batch-parallelism files at once.
+     */
+    @Bean(name = "ingestionBatchPool", destroyMethod = "shutdown")
+    public ExecutorService ingestionBatchPool() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, ingestionProperties.getBatchParallelism()),
+                r -> new Thread(r, "ingest-batch-" + threadCounter.incrementAndGet()));
+    }
+
+    /**
+     * Workers for the account lanes of parallel ingestion, see app.ingestion.parallel-enabled.
+     */
+    @Bean(name = "ingestionLanePool", destroyMethod = "shutdown")
+    public ForkJoinPool ingestionLanePool() {
+        return new ForkJoinPool(Math.max(1, ingestionProperties.getParallelLanes()), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ingest-lane-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,70 @@
+package com.estatement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ingestion")
+public class IngestionProperties {
+
+    // Parse, dedupe and persist uploads chunk by chunk instead of holding the whole file in memory
+    private boolean streamingEnabled = true;
+
+    // Rows per chunk in streaming mode; every chunk is committed in its own transaction
+    private int chunkSize = 5000;
+
+    // Write new transactions and accounts with multi-row JDBC INSERTs instead of per-entity JPA saves
+    private boolean bulkInsertEnabled = true;
+
+    // Let the unique key on txn_ref_number drop duplicates during the bulk insert (INSERT ... ON DUPLICATE KEY UPDATE)
+    // instead of looking every parsed reference up first; needs bulk-insert-enabled
+    private boolean dedupeOnWriteEnabled = true;
+
+    // After an upload recompute balances only from the earliest new transaction instead of the whole history
+    private boolean incrementalBalanceEnabled = true;
+
+    // Process uploads on a background executor and answer 202 right away
+    private boolean asyncEnabled = true;
+
+    // Number of uploads processed at the same time
+    private int jobConcurrency = 2;
+
+    // Uploads allowed to wait for a free worker before new ones are rejected
+    private int jobQueueCapacity = 20;
+
+    // How often progress events are pushed to /api/files/{fileId}/events listeners, at most
+    private long progressEventIntervalMs = 500;
+
+    // Read streaming uploads with StatementCsvParser instead of commons-csv
+    private boolean fastParserEnabled = true;
+
+    // On startup, requeue uploads left QUEUED or PROCESSING by the previous run; streaming uploads
+    // continue after their last committed chunk
+    private boolean resumeOnStartupEnabled = true;
+
+    // Split each streaming chunk by account number into lanes written (and afterwards rebalanced) concurrently
+    private boolean parallelEnabled = true;
+
+    // Lanes per chunk, shared by all uploads being processed; each lane holds a database connection while it runs
+    private int parallelLanes = 4;
+
+    // Files of batch uploads ingested at the same time, across all batches; each batch runs as a single job on the
+    // ingestion executor and hands its files to this shared pool
+    private int batchParallelism = 4;
+
+    // Run streaming ingestion as a pipeline: parsing, dedupe lookups and writes on separate threads, so
+    // parsing the next chunks overlaps with database round trips for the previous ones
+    private boolean pipelineEnabled = true;
+
+    // Chunks waiting between two pipeline stages before the earlier stage blocks
+    private int pipelineQueueCapacity = 2;
+
+    // Sort each upload by account and date on disk before writing, so running balances are written with the rows;
+    // for large unordered files. Takes precedence over streaming-enabled
+    private boolean sortedEnabled = false;
+
+    // Rows sorted in memory before a run is spilled to a temp file in sorted mode
+    private int sortRunSize = 100000;
+}
@@ -0,0 +1,10 @@
+package com.estatement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Periodic housekeeping such as the cleanup of abandoned chunked uploads
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
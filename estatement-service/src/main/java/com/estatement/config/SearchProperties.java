@@ -0,0 +1,19 @@
+package com.estatement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    // Match descriptions through the FULLTEXT index (created via POST /api/admin/search-index) instead of LIKE '%...%'
+    private boolean fullTextEnabled = true;
+
+    // Keep recently served listing and search pages in memory, dropped per account when ingestion changes it
+    private boolean cacheEnabled = true;
+    private int cacheMaxEntries = 1000;
+    private int cacheTtlSeconds = 60;
+}
@@ -0,0 +1,29 @@
+package com.estatement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.upload")
+public class UploadProperties {
+
+    // Chunk size handed out by a chunked upload session when the client does not ask for one
+    private int chunkSize = 5 * 1024 * 1024;
+
+    // Largest chunk a client may ask for; every chunk is streamed to disk, never held in memory
+    private int maxChunkSize = 32 * 1024 * 1024;
+
+    // Largest file accepted through chunked uploads
+    private long maxFileSize = 2L * 1024 * 1024 * 1024;
+
+    // Unfinished chunked uploads idle for longer than this are deleted together with their partial file
+    private int sessionTtlHours = 24;
+
+    // How often expired chunked uploads are looked for
+    private long sessionCleanupIntervalMs = 60 * 60 * 1000L;
+
+    // Unfinished chunked uploads one user may have open at a time
+    private int maxActiveSessionsPerUser = 5;
+}
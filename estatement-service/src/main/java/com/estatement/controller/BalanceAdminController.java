@@ -0,0 +1,42 @@
+package com.estatement.controller;
+
+import com.estatement.entity.BalanceRebuildRun;
+import com.estatement.service.BalanceRebuildService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/balances")
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceAdminController {
+
+    private final BalanceRebuildService balanceRebuildService;
+
+    // fresh=true abandons an unfinished run instead of resuming it
+    @PostMapping("/rebuild")
+    public ResponseEntity<BalanceRebuildRun> startRebuild(@RequestParam(defaultValue = "false") boolean fresh) {
+        log.info("POST /admin/balances/rebuild (fresh: {})", fresh);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(balanceRebuildService.start(fresh));
+    }
+
+    @GetMapping("/rebuild")
+    public ResponseEntity<?> getRebuildProgress() {
+        return balanceRebuildService.getLatestRun()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "No balance rebuild has been run yet")));
+    }
+
+    @PostMapping("/rebuild/stop")
+    public ResponseEntity<?> stopRebuild() {
+        log.info("POST /admin/balances/rebuild/stop");
+        balanceRebuildService.stop();
+        return ResponseEntity.accepted().body(Map.of("message", "Stop requested; the rebuild can be resumed later"));
+    }
+}
@@ -1,27 +1,44 @@
 package com.estatement.controller;
 
+import com.estatement.config.IngestionProperties;
 import com.estatement.entity.FileUpload;
 import com.estatement.dto.FileUploadDTO;
+import com.estatement.entity.UploadSession;
 import com.estatement.entity.User;
 import com.estatement.repository.FileUploadRepository;
 import com.estatement.repository.UserRepository;
+import com.estatement.service.BatchIngestionService;
+import com.estatement.service.ChunkedUploadService;
 import com.estatement.service.FileStorageService;
-import com.estatement.service.FileProcessingService;
+import com.estatement.service.IngestionEventPublisher;
+import com.estatement.service.IngestionJobService;
+import com.estatement.service.IngestionProgress;
+import com.estatement.service.IngestionProgressTracker;
+import com.estatement.service.QuarantineService;
+import com.estatement.util.StatementStreams;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,12 +48,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FileUploadController {
 
+    private static final String INVALID_FILE_TYPE_MESSAGE =
+            "Invalid file type. Only CSV files (.csv, .csv.gz or .zip) are accepted.";
+
     private final FileStorageService fileStorageService;
     private final FileUploadRepository fileUploadRepository;
     private final UserRepository userRepository;
-    private final FileProcessingService fileProcessingService;
+    private final IngestionJobService ingestionJobService;
+    private final IngestionProgressTracker progressTracker;
+    private final IngestionProperties ingestionProperties;
+    private final ChunkedUploadService chunkedUploadService;
+    private final IngestionEventPublisher ingestionEventPublisher;
+    private final QuarantineService quarantineService;
+    private final BatchIngestionService batchIngestionService;
 
-    // REPLACE your existing uploadFile method with this one
+    /**
+     * Stores the uploaded CSV and queues it for processing.
+     * Answers 202 with the fileId; progress and the final result are reported by /{fileId}/status.
+     */
     @PostMapping("/upload")
     public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file,
                                         Authentication authentication) {
@@ -53,7 +82,7 @@ public class FileUploadController {
         if (!isValidCsvFile(file)) {
             log.warn("Invalid file type: {}", file.getContentType());
             return ResponseEntity.badRequest()
-                    .body(Map.of("message", "Invalid file type. Only CSV files are accepted."));
+                    .body(Map.of("message", INVALID_FILE_TYPE_MESSAGE));
         }
 
         try {
@@ -64,89 +93,25 @@ public class FileUploadController {
 
             log.info("Processing file upload for user: {}", username);
 
-            // Store file physically
-            String storedFileName = fileStorageService.storeFile(file);
-            log.info("File stored successfully: {}", storedFileName);
+            // Store file physically, named by its content hash
+            FileStorageService.StoredFile storedFile = fileStorageService.storeFile(file);
+            log.info("File stored successfully: {}", storedFile.filename());
 
             // Create FileUpload entity
             FileUpload fileUpload = new FileUpload();
             fileUpload.setOriginalFilename(file.getOriginalFilename());
-            fileUpload.setFilename(storedFileName);
-            fileUpload.setFilePath("uploads/" + storedFileName);
+            fileUpload.setFilename(storedFile.filename());
+            fileUpload.setFilePath("uploads/" + storedFile.filename());
+            fileUpload.setContentHash(storedFile.contentHash());
             fileUpload.setUploadTime(LocalDateTime.now());
-            fileUpload.setStatus("PROCESSING");
+            fileUpload.setStatus(IngestionJobService.STATUS_QUEUED);
             fileUpload.setUploadedBy(currentUser);
 
             // Save initial record
             FileUpload savedFileUpload = fileUploadRepository.save(fileUpload);
             log.info("FileUpload entity saved with ID: {}", savedFileUpload.getId());
 
-            // Process CSV file
-            try {
-                // Create a new input stream from the stored file on disk
-                String filePath = "uploads/" + storedFileName;
-                log.info("Reading file from disk: {}", filePath);
-
-                InputStream fileInputStream = new FileInputStream(filePath);
-
-                log.info("Starting CSV processing...");
-                int recordCount = fileProcessingService.processAndInsertTransactions(
-                        storedFileName,
-                        fileInputStream,
-                        savedFileUpload.getId()
-                );
-
-                // Close the input stream
-                fileInputStream.close();
-
-                // --- START OF NEW VALIDATION ---
-                // Check if the service returned 0
-                if (recordCount == 0) {
-                    log.warn("File processing completed, but no new records were inserted (Upload ID: {})", savedFileUpload.getId());
-
-                    // Update status to FAILED with a clear message
-                    savedFileUpload.setStatus("FAILED");
-                    savedFileUpload.setRecordCount(0);
-                    savedFileUpload.setErrorMessage("No new or valid records were found in the file. All transactions may be duplicates or invalid.");
-                    fileUploadRepository.save(savedFileUpload);
-
-                    // Return a 400 Bad Request error to the frontend
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("message", "Upload failed: No new or valid records were found in the file."));
-                }
-                // --- END OF NEW VALIDATION ---
-
-                // If recordCount > 0, proceed with success
-                savedFileUpload.setStatus("COMPLETED");
-                savedFileUpload.setRecordCount(recordCount);
-                fileUploadRepository.save(savedFileUpload);
-
-                log.info("File processing completed. Records inserted: {}", recordCount);
-
-                Map<String, Object> response = new HashMap<>();
-                response.put("message", "File uploaded and processed successfully");
-                response.put("filename", file.getOriginalFilename());
-                response.put("recordCount", recordCount);
-                response.put("fileId", savedFileUpload.getId());
-
-                return ResponseEntity.ok(response);
-
-            } catch (Exception processingException) {
-                log.error("Error processing CSV file: {}", processingException.getMessage(), processingException);
-                processingException.printStackTrace();
-
-                // Update file upload status to FAILED
-                savedFileUpload.setStatus("FAILED");
-                savedFileUpload.setErrorMessage(processingException.getMessage());
-                fileUploadRepository.save(savedFileUpload);
-
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of(
-                                "message", "File uploaded but processing failed",
-                                "error", processingException.getMessage(),
-                                "fileId", savedFileUpload.getId()
-                        ));
-            }
+            return dispatch(savedFileUpload);
 
         } catch (UsernameNotFoundException e) {
             log.error("User not found: {}", e.getMessage());
@@ -160,6 +125,272 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Single-pass upload: the request body is the raw CSV, parsed while it is being written to disk,
+     * so the bytes are read once instead of stored and then read back.
+     * Processed on the request thread; answers with the final result like a synchronous multipart upload.
+     */
+    @PostMapping(value = "/upload/stream",
+            consumes = {"text/csv", "text/plain", "application/octet-stream", "application/gzip", "application/zip"})
+    public ResponseEntity<?> uploadFileStream(@RequestParam("filename") String filename,
+                                              HttpServletRequest request,
+                                              Authentication authentication) {
+        log.info("Single-pass upload request received: {}", filename);
+
+        if (!StatementStreams.isSupportedFilename(filename)) {
+            log.warn("Invalid file name for single-pass upload: {}", filename);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", INVALID_FILE_TYPE_MESSAGE));
+        }
+
+        try {
+            String username = authentication.getName();
+            User currentUser = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+
+            String storedFileName = fileStorageService.newStoredFileName(filename);
+            FileUpload fileUpload = new FileUpload();
+            fileUpload.setOriginalFilename(filename);
+            fileUpload.setFilename(storedFileName);
+            fileUpload.setFilePath("uploads/" + storedFileName);
+            fileUpload.setUploadTime(LocalDateTime.now());
+            fileUpload.setStatus(IngestionJobService.STATUS_QUEUED);
+            fileUpload.setUploadedBy(currentUser);
+            FileUpload savedFileUpload = fileUploadRepository.save(fileUpload);
+            log.info("FileUpload entity saved with ID: {}", savedFileUpload.getId());
+
+            progressTracker.start(savedFileUpload.getId());
+            FileUpload processed = ingestionJobService.processWhileStoring(savedFileUpload.getId(), request.getInputStream());
+            return processedResponse(savedFileUpload, processed);
+
+        } catch (UsernameNotFoundException e) {
+            log.error("User not found: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "User authentication failed"));
+        } catch (Exception e) {
+            log.error("Unexpected error during single-pass upload: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Unexpected error occurred during file upload", "error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Batch upload: many CSVs (plain, .csv.gz, or zip archives whose every CSV entry counts as a file),
+     * ingested in parallel with one balance recalculation per account at the end.
+     * Each CSV gets its own upload record; queued batches answer 202 with their fileIds,
+     * whose progress is reported by /{fileId}/status as usual.
+     */
+    @PostMapping("/upload/batch")
+    public ResponseEntity<?> uploadBatch(@RequestParam("files") List<MultipartFile> files,
+                                         Authentication authentication) {
+        log.info("Batch upload request received: {} files", files.size());
+
+        for (MultipartFile file : files) {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "File " + file.getOriginalFilename() + " is empty."));
+            }
+            if (!isValidCsvFile(file)) {
+                log.warn("Invalid file type in batch: {} ({})", file.getOriginalFilename(), file.getContentType());
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", INVALID_FILE_TYPE_MESSAGE));
+            }
+        }
+
+        List<FileUpload> uploads;
+        try {
+            uploads = batchIngestionService.store(files, currentUser(authentication));
+        } catch (UsernameNotFoundException e) {
+            log.error("User not found: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "User authentication failed"));
+        } catch (IOException e) {
+            log.warn("Could not read batch upload: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Could not read the uploaded files: " + e.getMessage()));
+        }
+
+        if (!ingestionProperties.isAsyncEnabled()) {
+            List<FileUpload> processed = batchIngestionService.processNow(uploads);
+            return ResponseEntity.ok(batchResponse("Batch uploaded and processed", processed));
+        }
+
+        try {
+            batchIngestionService.submit(uploads);
+        } catch (TaskRejectedException rejected) {
+            log.warn("Ingestion queue is full, rejecting batch of {} uploads", uploads.size());
+            for (FileUpload upload : uploads) {
+                if (IngestionJobService.STATUS_QUEUED.equals(upload.getStatus())) {
+                    upload.setStatus(IngestionJobService.STATUS_FAILED);
+                    upload.setErrorMessage("Server is busy processing other uploads. Please try again later.");
+                }
+            }
+            fileUploadRepository.saveAll(uploads);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Server is busy processing other uploads. Please try again later."));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(batchResponse("Batch uploaded and queued for processing", uploads));
+    }
+
+    /**
+     * Server-Sent Events stream of an upload's processing: a {@code progress} event with stage and row
+     * counters whenever they change (throttled to app.ingestion.progress-event-interval-ms), and a last one
+     * with stage COMPLETED or FAILED before the stream closes. Uploads that are not being processed get a
+     * single event carrying their stored status.
+     */
+    @GetMapping(value = "/{fileId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamFileEvents(@PathVariable Long fileId, Authentication authentication) {
+        FileUpload fileUpload = fileUploadRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
+
+        // Check if user owns this file
+        if (!fileUpload.getUploadedBy().getId().equals(currentUser(authentication).getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        SseEmitter emitter = progressTracker.get(fileId)
+                .map(ingestionEventPublisher::subscribe)
+                .orElseGet(() -> finishedUploadEvents(fileUpload));
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Downloads the rows of an upload that could not be imported, as CSV with line number, reason and raw record.
+     */
+    @GetMapping("/{fileId}/quarantine")
+    public ResponseEntity<?> downloadQuarantineReport(@PathVariable Long fileId, Authentication authentication) {
+        FileUpload fileUpload = fileUploadRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
+
+        // Check if user owns this file
+        if (!fileUpload.getUploadedBy().getId().equals(currentUser(authentication).getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "You do not have permission to access this file"));
+        }
+
+        return quarantineService.find(fileId)
+                .<ResponseEntity<?>>map(path -> ResponseEntity.ok()
+                        .contentType(new MediaType("text", "csv"))
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename("rejected-rows-" + fileId + ".csv")
+                                .build()
+                                .toString())
+                        .body(new FileSystemResource(path)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "No rows were rejected for this file")));
+    }
+
+    private SseEmitter finishedUploadEvents(FileUpload fileUpload) {
+        SseEmitter emitter = new SseEmitter();
+        Map<String, Object> state = new HashMap<>();
+        state.put("status", fileUpload.getStatus());
+        state.put("insertedRecords", fileUpload.getRecordCount());
+        state.put("duplicateRecords", fileUpload.getDuplicateCount());
+        state.put("rejectedRecords", fileUpload.getRejectedCount());
+        if (IngestionJobService.STATUS_FAILED.equals(fileUpload.getStatus())) {
+            state.put("stage", IngestionProgress.Stage.FAILED);
+        } else if (IngestionJobService.STATUS_COMPLETED.equals(fileUpload.getStatus())
+                || IngestionJobService.STATUS_DUPLICATE.equals(fileUpload.getStatus())) {
+            state.put("stage", IngestionProgress.Stage.COMPLETED);
+        }
+        try {
+            emitter.send(SseEmitter.event().name(IngestionEventPublisher.PROGRESS_EVENT).data(state));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * Opens a resumable chunked upload for files above the multipart limit.
+     * Body: {@code {"filename": "...", "totalSize": 123, "chunkSize": 5242880}} (chunkSize optional).
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startChunkedUpload(@RequestBody Map<String, Object> request,
+                                                Authentication authentication) {
+        try {
+            User currentUser = currentUser(authentication);
+            Object totalSize = request.get("totalSize");
+            Object chunkSize = request.get("chunkSize");
+            UploadSession session = chunkedUploadService.start(
+                    (String) request.get("filename"),
+                    totalSize instanceof Number n ? n.longValue() : 0L,
+                    chunkSize instanceof Number n ? n.intValue() : null,
+                    currentUser);
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionResponse(session));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Lists the chunks still missing, so an interrupted client knows what to resend.
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getChunkedUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            UploadSession session = chunkedUploadService.getSession(uploadId, currentUser(authentication));
+            return ResponseEntity.ok(uploadSessionResponse(session));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Receives chunk {@code index} as the raw request body and writes it straight to its place in the file.
+     */
+    @PutMapping(value = "/uploads/{uploadId}/chunks/{index}", consumes = "application/octet-stream")
+    public ResponseEntity<?> uploadChunk(@PathVariable String uploadId,
+                                         @PathVariable int index,
+                                         HttpServletRequest request,
+                                         Authentication authentication) {
+        try {
+            UploadSession session = chunkedUploadService.writeChunk(
+                    uploadId, index, request.getInputStream(), currentUser(authentication));
+            return ResponseEntity.ok(Map.of(
+                    "uploadId", session.getId(),
+                    "index", index,
+                    "receivedChunks", session.getTotalChunks() - chunkedUploadService.getMissingChunks(session).size(),
+                    "totalChunks", session.getTotalChunks()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        } catch (IOException e) {
+            log.error("Error storing chunk {} of upload {}: {}", index, uploadId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Could not store chunk " + index + ", please resend it"));
+        }
+    }
+
+    /**
+     * Finishes a chunked upload and hands the assembled file to processing, like a multipart upload.
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeChunkedUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            FileUpload fileUpload = chunkedUploadService.complete(uploadId, currentUser(authentication));
+            return dispatch(fileUpload);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/history")
     public ResponseEntity<List<FileUploadDTO>> getUploadHistory(Authentication authentication) {
         log.info("Fetching upload history for user: {}", authentication.getName());
@@ -178,7 +409,10 @@ public class FileUploadController {
                     dto.setUploadTime(upload.getUploadTime());
                     dto.setStatus(upload.getStatus());
                     dto.setRecordCount(upload.getRecordCount());
+                    dto.setDuplicateCount(upload.getDuplicateCount());
+                    dto.setRejectedCount(upload.getRejectedCount());
                     dto.setErrorMessage(upload.getErrorMessage());
+                    dto.setDuplicateOf(upload.getDuplicateOf());
                     return dto;
                 })
                 .collect(Collectors.toList());
@@ -209,12 +443,144 @@ public class FileUploadController {
         response.put("filename", fileUpload.getOriginalFilename());
         response.put("status", fileUpload.getStatus());
         response.put("recordCount", fileUpload.getRecordCount());
+        response.put("duplicateCount", fileUpload.getDuplicateCount());
+        response.put("rejectedCount", fileUpload.getRejectedCount());
         response.put("uploadTime", fileUpload.getUploadTime());
         response.put("errorMessage", fileUpload.getErrorMessage());
+        response.put("duplicateOf", fileUpload.getDuplicateOf());
+        progressTracker.get(fileId).ifPresent(progress -> response.put("progress", progress.toMap()));
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Processes a stored upload inline or queues it, depending on app.ingestion.async-enabled.
+     * Queued uploads answer 202 with the fileId; progress and the final result are reported by /{fileId}/status.
+     */
+    private ResponseEntity<?> dispatch(FileUpload savedFileUpload) {
+        // The same file was imported before: link to that result instead of parsing every row again
+        if (ingestionJobService.linkToEarlierResult(savedFileUpload)) {
+            FileUpload duplicate = fileUploadRepository.save(savedFileUpload);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "This file was already uploaded and processed");
+            response.put("filename", duplicate.getOriginalFilename());
+            response.put("fileId", duplicate.getId());
+            response.put("status", duplicate.getStatus());
+            response.put("duplicateOf", duplicate.getDuplicateOf());
+            response.put("recordCount", 0);
+            return ResponseEntity.ok(response);
+        }
+
+        if (!ingestionProperties.isAsyncEnabled()) {
+            return processSynchronously(savedFileUpload);
+        }
+
+        // Hand the stored file to the background executor and answer right away
+        try {
+            ingestionJobService.submit(savedFileUpload.getId());
+        } catch (TaskRejectedException rejected) {
+            log.warn("Ingestion queue is full, rejecting upload {}", savedFileUpload.getId());
+            savedFileUpload.setStatus(IngestionJobService.STATUS_FAILED);
+            savedFileUpload.setErrorMessage("Server is busy processing other uploads. Please try again later.");
+            fileUploadRepository.save(savedFileUpload);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of(
+                            "message", "Server is busy processing other uploads. Please try again later.",
+                            "fileId", savedFileUpload.getId()
+                    ));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "File uploaded and queued for processing");
+        response.put("filename", savedFileUpload.getOriginalFilename());
+        response.put("fileId", savedFileUpload.getId());
+        response.put("status", IngestionJobService.STATUS_QUEUED);
+        response.put("statusUrl", "/api/files/" + savedFileUpload.getId() + "/status");
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    private Map<String, Object> batchResponse(String message, List<FileUpload> uploads) {
+        List<Map<String, Object>> files = uploads.stream()
+                .map(upload -> {
+                    Map<String, Object> file = new HashMap<>();
+                    file.put("fileId", upload.getId());
+                    file.put("filename", upload.getOriginalFilename());
+                    file.put("status", upload.getStatus());
+                    file.put("recordCount", upload.getRecordCount());
+                    file.put("duplicateCount", upload.getDuplicateCount());
+                    file.put("rejectedCount", upload.getRejectedCount());
+                    file.put("duplicateOf", upload.getDuplicateOf());
+                    file.put("errorMessage", upload.getErrorMessage());
+                    file.put("statusUrl", "/api/files/" + upload.getId() + "/status");
+                    return file;
+                })
+                .collect(Collectors.toList());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message);
+        response.put("fileCount", files.size());
+        response.put("files", files);
+        return response;
+    }
+
+    private Map<String, Object> uploadSessionResponse(UploadSession session) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("uploadId", session.getId());
+        response.put("filename", session.getOriginalFilename());
+        response.put("totalSize", session.getTotalSize());
+        response.put("chunkSize", session.getChunkSize());
+        response.put("totalChunks", session.getTotalChunks());
+        response.put("missingChunks", chunkedUploadService.getMissingChunks(session));
+        response.put("status", session.getStatus());
+        response.put("fileId", session.getFileUploadId());
+        return response;
+    }
+
+    private User currentUser(Authentication authentication) {
+        String username = authentication.getName();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    /**
+     * Processes the upload on the request thread (app.ingestion.async-enabled=false)
+     * and answers with the final result, as before background processing existed.
+     */
+    private ResponseEntity<?> processSynchronously(FileUpload fileUpload) {
+        return processedResponse(fileUpload, ingestionJobService.process(fileUpload.getId()));
+    }
+
+    private ResponseEntity<?> processedResponse(FileUpload fileUpload, FileUpload processed) {
+        if (processed == null || IngestionJobService.STATUS_FAILED.equals(processed.getStatus())) {
+            String error = processed != null ? processed.getErrorMessage() : "Upload record not found";
+            if (IngestionJobService.NO_NEW_RECORDS_MESSAGE.equals(error)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "Upload failed: No new or valid records were found in the file."));
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "message", "File uploaded but processing failed",
+                            "error", String.valueOf(error),
+                            "fileId", fileUpload.getId()
+                    ));
+        }
+
+        boolean duplicate = IngestionJobService.STATUS_DUPLICATE.equals(processed.getStatus());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", duplicate
+                ? "This file was already uploaded and processed"
+                : "File uploaded and processed successfully");
+        response.put("filename", processed.getOriginalFilename());
+        response.put("recordCount", processed.getRecordCount());
+        response.put("duplicateCount", processed.getDuplicateCount());
+        response.put("rejectedCount", processed.getRejectedCount());
+        response.put("fileId", processed.getId());
+        response.put("status", processed.getStatus());
+        response.put("duplicateOf", processed.getDuplicateOf());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Validates if the uploaded file is a CSV file
      */
@@ -222,8 +588,8 @@ public class FileUploadController {
         String contentType = file.getContentType();
         String filename = file.getOriginalFilename();
 
-        // Check file extension
-        if (filename == null || !filename.toLowerCase().endsWith(".csv")) {
+        // Check file extension: plain CSV, gzip-compressed CSV or a zip archive holding one
+        if (!StatementStreams.isSupportedFilename(filename)) {
             return false;
         }
 
@@ -231,6 +597,11 @@ public class FileUploadController {
         return contentType == null ||
                 contentType.equals("text/csv") ||
                 contentType.equals("application/vnd.ms-excel") ||
-                contentType.equals("application/csv");
+                contentType.equals("application/csv") ||
+                contentType.equals("application/gzip") ||
+                contentType.equals("application/x-gzip") ||
+                contentType.equals("application/zip") ||
+                contentType.equals("application/x-zip-compressed") ||
+                contentType.equals("application/octet-stream");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.estatement.controller;
+
+import com.estatement.service.SearchResultCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/search-cache")
+@RequiredArgsConstructor
+@Slf4j
+public class SearchCacheAdminController {
+
+    private final SearchResultCache searchResultCache;
+
+    // Hits, misses, hit rate, size and removals since startup
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(searchResultCache.getStats());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clear() {
+        log.info("DELETE /admin/search-cache");
+        searchResultCache.evictAll();
+        return ResponseEntity.ok(Map.of("message", "Search cache cleared"));
+    }
+}
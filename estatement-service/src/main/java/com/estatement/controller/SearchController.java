@@ -24,8 +24,12 @@ public class SearchController {
     public ResponseEntity<PageResponse<TransactionDTO>> searchTransactions(
             @RequestBody SearchCriteria criteria) {
         log.info("POST /search - Criteria: {}", criteria);
-        PageResponse<TransactionDTO> response = searchService.searchTransactions(criteria);
-        return ResponseEntity.ok(response);
+        try {
+            PageResponse<TransactionDTO> response = searchService.searchTransactions(criteria);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/range")
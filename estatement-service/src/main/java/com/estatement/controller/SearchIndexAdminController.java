@@ -0,0 +1,37 @@
+package com.estatement.controller;
+
+import com.estatement.repository.DescriptionSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/search-index")
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexAdminController {
+
+    private final DescriptionSearchIndex descriptionSearchIndex;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(Map.of(
+                "available", descriptionSearchIndex.isAvailable(),
+                "building", descriptionSearchIndex.isBuilding()));
+    }
+
+    // Rebuilds the transactions table and blocks writes to it until done; run it while ingestion is quiet
+    @PostMapping
+    public ResponseEntity<?> create() {
+        log.info("POST /admin/search-index");
+        if (!descriptionSearchIndex.create()) {
+            return ResponseEntity.ok(Map.of("message", "FULLTEXT index already exists or is being built"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("message", "Building FULLTEXT index; searches use LIKE until it is done"));
+    }
+}
@@ -23,10 +23,16 @@ public class TransactionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "dateTime") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(required = false) String cursor) {
         log.info("GET /transactions - Page: {}, Size: {}", page, size);
-        PageResponse<TransactionDTO> response = transactionService.getAllTransactions(page, size, sortBy, sortDirection);
-        return ResponseEntity.ok(response);
+        try {
+            PageResponse<TransactionDTO> response = transactionService.getAllTransactions(
+                    page, size, sortBy, sortDirection, cursor);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/account/{accountNumber}")
@@ -35,12 +41,17 @@ public class TransactionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "dateTime") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(required = false) String cursor) {
         log.info("GET /transactions/account/{} - Page: {}, Size: {}", accountNumber, page, size);
-        PageResponse<TransactionDTO> response = transactionService.getTransactionsByAccount(
-                accountNumber, page, size, sortBy, sortDirection
-        );
-        return ResponseEntity.ok(response);
+        try {
+            PageResponse<TransactionDTO> response = transactionService.getTransactionsByAccount(
+                    accountNumber, page, size, sortBy, sortDirection, cursor
+            );
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,31 @@
+package com.estatement.dto;
+
+import com.estatement.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Where the balance recalculation of one account has to start: the earliest dateTime among its newly inserted
+ * transactions. Everything before {@code from} keeps its running balance; everything from there to the end
+ * of the account is recomputed, since rows inserted in between shift every later balance.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceWindow {
+    private String accountNumber;
+    private LocalDateTime from;
+
+    public static BalanceWindow of(Transaction transaction) {
+        return new BalanceWindow(transaction.getAccountNumber(), transaction.getDateTime());
+    }
+
+    public BalanceWindow merge(BalanceWindow other) {
+        if (other.getFrom().isBefore(from)) {
+            from = other.getFrom();
+        }
+        return this;
+    }
+}
@@ -10,5 +10,8 @@ public class FileUploadDTO {
     private LocalDateTime uploadTime;
     private String status;
     private int recordCount;
+    private int duplicateCount;
+    private int rejectedCount;
     private String errorMessage;
+    private Long duplicateOf;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.estatement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last committed chunk of a streaming upload: how many CSV records were consumed (parsed or rejected)
+ * and the counts up to that point. Saved in the chunk's own transaction, so an interrupted upload
+ * can continue after the last record whose rows are known to be stored. All zero for a fresh start.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionCheckpoint {
+
+    private long recordNumber;
+    private int insertedCount;
+    private int duplicateCount;
+    private int rejectedCount;
+}
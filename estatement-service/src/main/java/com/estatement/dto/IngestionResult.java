@@ -0,0 +1,19 @@
+package com.estatement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of ingesting one file: rows written and valid rows dropped because their
+ * transaction reference was already stored (or appeared earlier in the same file), plus
+ * rows rejected as invalid and written to the upload's quarantine report.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionResult {
+    private int insertedCount;
+    private int duplicateCount;
+    private int rejectedCount;
+}
@@ -17,4 +17,8 @@ public class PageResponse<T> {
     private boolean first;
     private boolean last;
     private boolean empty;
+    // Keyset mode only: opaque cursors of the neighbouring pages, null at either end.
+    // totalPages and totalElements are -1 there, since no count is run
+    private String nextCursor;
+    private String previousCursor;
 }
\ No newline at end of file
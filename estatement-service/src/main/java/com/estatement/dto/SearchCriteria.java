@@ -18,4 +18,6 @@ public class SearchCriteria {
     private Integer size = 20;
     private String sortBy = "dateTime";
     private String sortDirection = "DESC";
+    // Set (empty for the first page) to page by cursor instead of page number, see PageResponse.nextCursor
+    private String cursor;
 }
\ No newline at end of file
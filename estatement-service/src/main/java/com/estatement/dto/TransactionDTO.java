@@ -22,4 +22,17 @@ public class TransactionDTO {
     private String formattedWithdrawals;
     private String formattedCredit;
     private String formattedBalance;
+
+    // Projection constructor used by TransactionReadRepository; the formatted fields are filled in by TransactionMapper
+    public TransactionDTO(Long id, String txnRefNumber, String accountNumber, LocalDateTime dateTime,
+                          String description, BigDecimal withdrawals, BigDecimal credit, BigDecimal runningBalance) {
+        this.id = id;
+        this.txnRefNumber = txnRefNumber;
+        this.accountNumber = accountNumber;
+        this.dateTime = dateTime;
+        this.description = description;
+        this.withdrawals = withdrawals;
+        this.credit = credit;
+        this.runningBalance = runningBalance;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.estatement.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Durable progress of a full balance rebuild.
+ * Accounts are processed in account-number order; every account up to and including
+ * {@code lastAccountNumber} is known to be done, so an interrupted run resumes after it.
+ */
+@Data
+@Entity
+@Table(name = "balance_rebuild_runs")
+public class BalanceRebuildRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String status; // e.g., "RUNNING", "COMPLETED", "FAILED", "INTERRUPTED", "ABANDONED"
+
+    @Column(name = "total_accounts")
+    private int totalAccounts;
+
+    @Column(name = "processed_accounts")
+    private int processedAccounts;
+
+    @Column(name = "failed_accounts")
+    private int failedAccounts;
+
+    @Column(name = "last_account_number", length = 50)
+    private String lastAccountNumber;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+}
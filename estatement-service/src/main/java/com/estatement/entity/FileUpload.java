@@ -6,7 +6,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "file_uploads")
+@Table(name = "file_uploads", indexes = {
+        @Index(name = "idx_content_hash", columnList = "content_hash")
+})
 public class FileUpload {
 
     @Id
@@ -27,12 +29,34 @@ public class FileUpload {
     @Column(name = "record_count")
     private int recordCount;
 
+    @Column(name = "duplicate_count")
+    private int duplicateCount;
+
+    @Column(name = "rejected_count")
+    private int rejectedCount;
+
+    // CSV records consumed by the last committed chunk while processing; 0 when not in progress
+    @Column(name = "checkpoint_record")
+    private long checkpointRecord;
+
+    // Rows stored by a batch whose shared balance pass has not committed yet; redone on startup if still set
+    @Column(name = "balance_pending")
+    private boolean balancePending;
+
     @ManyToOne
     @JoinColumn(name = "uploaded_by_user_id") // Maps to the user who uploaded it
     private User uploadedBy;
 
-    private String status; // e.g., "PROCESSING", "COMPLETED", "FAILED"
+    private String status; // e.g., "QUEUED", "PROCESSING", "COMPLETED", "DUPLICATE", "FAILED"
 
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
+
+    // SHA-256 of the stored file, which is also its name in the upload directory
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Earlier completed upload with the same content; set when this one was not processed again
+    @Column(name = "duplicate_of")
+    private Long duplicateOf;
 }
\ No newline at end of file
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "transactions", indexes = {
         @Index(name = "idx_account_date", columnList = "account_number, date_time"),
-        @Index(name = "idx_txn_ref", columnList = "txn_ref_number")
+        // Keyset paging over all accounts; InnoDB appends the id, so it covers ORDER BY date_time, id
+        @Index(name = "idx_date_time", columnList = "date_time"),
+        @Index(name = "idx_file_upload", columnList = "file_upload_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_txn_ref_number", columnNames = "txn_ref_number")
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,57 @@
+package com.estatement.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * A chunked upload in progress. Chunk {@code n} covers bytes {@code [n * chunkSize, (n + 1) * chunkSize)}
+ * of the stored file and is written in place, so chunks may arrive in any order and be resent.
+ */
+@Data
+@Entity
+@Table(name = "upload_sessions")
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "original_filename")
+    private String originalFilename;
+
+    @Column(name = "stored_filename")
+    private String storedFilename;
+
+    @Column(name = "total_size")
+    private long totalSize;
+
+    @Column(name = "chunk_size")
+    private int chunkSize;
+
+    @Column(name = "total_chunks")
+    private int totalChunks;
+
+    // One character per chunk, '1' once the chunk has been written
+    @Column(name = "received_chunks", columnDefinition = "TEXT")
+    private String receivedChunks;
+
+    @ManyToOne
+    @JoinColumn(name = "uploaded_by_user_id")
+    private User uploadedBy;
+
+    private String status; // e.g., "UPLOADING", "COMPLETING", "COMPLETED"
+
+    // Set while completing, before the file moves to its content address, so a retried completion can finish
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Column(name = "file_upload_id")
+    private Long fileUploadId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -4,9 +4,11 @@ import com.estatement.entity.Account;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +22,34 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a.accountNumber FROM Account a ORDER BY a.accountNumber")
     List<String> findAllAccountNumbers();
 
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.accountNumber > :after ORDER BY a.accountNumber")
+    List<String> findAccountNumbersAfter(@Param("after") String after);
+
+    // Accounts up to and including a rebuild checkpoint, i.e. the ones a resumed rebuild skips
+    long countByAccountNumberLessThanEqual(String accountNumber);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
     Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    // Sets every account's current balance to the sum of its transactions
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE accounts a JOIN (" +
+            "SELECT account_number, SUM(COALESCE(credit, 0) - COALESCE(withdrawals, 0)) AS balance " +
+            "FROM transactions GROUP BY account_number) s ON s.account_number = a.account_number " +
+            "SET a.current_balance = s.balance, a.updated_at = NOW()", nativeQuery = true)
+    int refreshAllCurrentBalances();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE accounts SET current_balance = (" +
+            "SELECT COALESCE(SUM(COALESCE(t.credit, 0) - COALESCE(t.withdrawals, 0)), 0) " +
+            "FROM transactions t WHERE t.account_number = :accountNumber), updated_at = NOW() " +
+            "WHERE account_number = :accountNumber", nativeQuery = true)
+    int refreshCurrentBalance(@Param("accountNumber") String accountNumber);
+
+    // Balance carried forward by sorted ingestion, which already knows it
+    @Modifying
+    @Query(value = "UPDATE accounts SET current_balance = :balance, updated_at = NOW() " +
+            "WHERE account_number = :accountNumber", nativeQuery = true)
+    int updateCurrentBalance(@Param("accountNumber") String accountNumber, @Param("balance") BigDecimal balance);
 }
@@ -0,0 +1,13 @@
+package com.estatement.repository;
+
+import com.estatement.entity.BalanceRebuildRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface BalanceRebuildRunRepository extends JpaRepository<BalanceRebuildRun, Long> {
+
+    Optional<BalanceRebuildRun> findFirstByOrderByStartedAtDesc();
+
+    Optional<BalanceRebuildRun> findFirstByStatusInOrderByStartedAtDesc(Collection<String> statuses);
+}
@@ -0,0 +1,138 @@
+package com.estatement.repository;
+
+import com.estatement.config.SearchProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The InnoDB FULLTEXT index on {@code transactions.description}. JPA cannot declare it and adding it rebuilds
+ * the table while blocking writes, so it is never created implicitly: startup only detects it, and an admin
+ * creates it with {@code POST /api/admin/search-index} (or the same ALTER TABLE run by hand) in a quiet moment.
+ * Once it exists InnoDB keeps it up to date on every insert, the bulk ones included.
+ * Until then (or with {@code app.search.full-text-enabled} off) searches fall back to {@code LIKE}.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DescriptionSearchIndex {
+
+    static final String INDEX_NAME = "ft_description";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchProperties searchProperties;
+
+    private volatile boolean available;
+    private volatile Thread builder;
+    // Words shorter than innodb_ft_min_token_size are not in the index
+    private volatile int minTokenSize = 3;
+
+    /**
+     * Checks whether the index exists; read-only, so it costs nothing on a large table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void detect() {
+        if (!searchProperties.isFullTextEnabled()) {
+            return;
+        }
+        try {
+            readMinTokenSize();
+            available = indexExists();
+            if (!available) {
+                log.warn("FULLTEXT index {} is missing, description search uses LIKE until it is created " +
+                        "with POST /api/admin/search-index", INDEX_NAME);
+            }
+        } catch (Exception e) {
+            log.warn("FULLTEXT search on descriptions is not available, using LIKE: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the index in the background when it is missing. InnoDB rebuilds the table for it and ingestion
+     * waits on the table lock until it is done; searches keep using {@code LIKE} meanwhile.
+     *
+     * @return false when the index already exists or is being built
+     */
+    public synchronized boolean create() {
+        if (available || isBuilding()) {
+            return false;
+        }
+        builder = new Thread(this::build, "search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+        return true;
+    }
+
+    public boolean isBuilding() {
+        Thread thread = builder;
+        return thread != null && thread.isAlive();
+    }
+
+    private void build() {
+        try {
+            readMinTokenSize();
+            if (!indexExists()) {
+                log.info("Creating FULLTEXT index {} on transactions.description...", INDEX_NAME);
+                long start = System.currentTimeMillis();
+                jdbcTemplate.execute("ALTER TABLE transactions ADD FULLTEXT INDEX " + INDEX_NAME + " (description)");
+                log.info("FULLTEXT index {} created in {} ms", INDEX_NAME, System.currentTimeMillis() - start);
+            }
+            available = true;
+        } catch (Exception e) {
+            log.error("Creating FULLTEXT index {} failed: {}", INDEX_NAME, e.getMessage(), e);
+        }
+    }
+
+    private void readMinTokenSize() {
+        Integer tokenSize = jdbcTemplate.queryForObject("SELECT @@innodb_ft_min_token_size", Integer.class);
+        if (tokenSize != null) {
+            minTokenSize = tokenSize;
+        }
+    }
+
+    private boolean indexExists() {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+                        "AND table_name = 'transactions' AND index_name = ?", Integer.class, INDEX_NAME);
+        return existing != null && existing > 0;
+    }
+
+    public boolean isAvailable() {
+        return available && searchProperties.isFullTextEnabled();
+    }
+
+    /**
+     * Splits the search text into words and turns the indexable ones into a boolean-mode query
+     * in which every word is required and matches as a prefix: {@code "pos sal"} becomes {@code "+pos* +sal*"}.
+     * Characters that are operators in boolean mode never reach the query.
+     */
+    public DescriptionQuery parse(String text) {
+        List<String> indexed = new ArrayList<>();
+        List<String> shortWords = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.length() >= minTokenSize) {
+                indexed.add("+" + word + "*");
+            } else {
+                shortWords.add(word);
+            }
+        }
+        return new DescriptionQuery(String.join(" ", indexed), shortWords);
+    }
+
+    /**
+     * @param booleanQuery words the index can answer, empty when there are none
+     * @param shortWords   words below the index's token size, still to be matched with {@code LIKE}
+     */
+    public record DescriptionQuery(String booleanQuery, List<String> shortWords) {
+    }
+}
@@ -3,7 +3,13 @@ package com.estatement.repository;
 import com.estatement.entity.FileUpload;
 import com.estatement.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface FileUploadRepository extends JpaRepository<FileUpload, Long> {
 
@@ -14,4 +20,31 @@ public interface FileUploadRepository extends JpaRepository<FileUpload, Long> {
      * @return A list of FileUpload entities.
      */
     List<FileUpload> findByUploadedByOrderByUploadTimeDesc(User user);
+
+    // Oldest upload of the same content by the same user in the given status, other than the upload itself
+    Optional<FileUpload> findFirstByContentHashAndUploadedByAndStatusAndIdNotOrderByIdAsc(
+            String contentHash, User uploadedBy, String status, Long id);
+
+    boolean existsByContentHash(String contentHash);
+
+    List<FileUpload> findByStatusInOrderByIdAsc(Collection<String> statuses);
+
+    List<FileUpload> findByBalancePendingTrueOrderByIdAsc();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileUpload f SET f.balancePending = :pending WHERE f.id IN :ids")
+    int setBalancePending(@Param("ids") Collection<Long> ids, @Param("pending") boolean pending);
+
+    /**
+     * Records the progress of a streaming upload; runs in the transaction of the chunk it describes.
+     */
+    @Modifying
+    @Query("UPDATE FileUpload f SET f.checkpointRecord = :recordNumber, f.recordCount = :insertedCount, " +
+            "f.duplicateCount = :duplicateCount, f.rejectedCount = :rejectedCount WHERE f.id = :id")
+    int saveCheckpoint(@Param("id") Long id,
+                       @Param("recordNumber") long recordNumber,
+                       @Param("insertedCount") int insertedCount,
+                       @Param("duplicateCount") int duplicateCount,
+                       @Param("rejectedCount") int rejectedCount);
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.estatement.repository;
+
+import com.estatement.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Plain JDBC write path for ingestion.
+ * Transaction and Account use IDENTITY ids, which keeps Hibernate from batching inserts,
+ * so large uploads are written here as multi-row INSERT statements instead of one INSERT per entity.
+ * Runs on the connection of the surrounding JPA transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionBulkRepository {
+
+    // 1000 rows x 9 columns stays well below MySQL's 65535 placeholder limit
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final String TRANSACTION_COLUMN_LIST =
+            "transactions (txn_ref_number, account_number, date_time, description, " +
+            "withdrawals, credit, running_balance, file_upload_id, created_at) VALUES ";
+    private static final String INSERT_TRANSACTIONS = "INSERT INTO " + TRANSACTION_COLUMN_LIST;
+    // Only a unique-key conflict is absorbed; any other error (e.g. an over-long description) still fails
+    private static final String KEEP_EXISTING_ON_DUPLICATE = " ON DUPLICATE KEY UPDATE id = id";
+    private static final String TRANSACTION_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int TRANSACTION_COLUMNS = 9;
+
+    private static final String INSERT_ACCOUNTS =
+            "INSERT INTO accounts (account_number, current_balance, created_at, updated_at) VALUES ";
+    private static final String ACCOUNT_ROW = "(?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given transactions with multi-row INSERTs of up to {@value #ROWS_PER_STATEMENT} rows.
+     * Generated ids are not read back.
+     *
+     * @return number of rows inserted
+     */
+    public int insertTransactions(List<Transaction> transactions) {
+        return insertTransactions(null, transactions);
+    }
+
+    /**
+     * Like {@link #insertTransactions} but rows whose txn_ref_number already exists, in the table or
+     * earlier in the same list, are skipped by the unique key instead of failing the statement.
+     * The driver reports skipped rows as affected too (it connects with CLIENT_FOUND_ROWS), so the rows
+     * written are counted afterwards by their created_at, which every statement of this call shares.
+     * Repeats within the list are dropped up front (first one wins), so that count never meets a row
+     * an earlier slice of the same call inserted.
+     *
+     * @return number of rows inserted; {@code transactions.size()} minus this is the number of duplicates
+     */
+    public int insertTransactionsIgnoringDuplicates(List<Transaction> transactions) {
+        Map<String, Transaction> byTxnRef = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            byTxnRef.putIfAbsent(transaction.getTxnRefNumber(), transaction);
+        }
+        return insertTransactions(KEEP_EXISTING_ON_DUPLICATE, new ArrayList<>(byTxnRef.values()));
+    }
+
+    private int insertTransactions(String onDuplicate, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        int inserted = 0;
+        for (int from = 0; from < transactions.size(); from += ROWS_PER_STATEMENT) {
+            List<Transaction> slice = transactions.subList(from, Math.min(from + ROWS_PER_STATEMENT, transactions.size()));
+            Object[] args = new Object[slice.size() * TRANSACTION_COLUMNS];
+            int i = 0;
+            for (Transaction t : slice) {
+                args[i++] = t.getTxnRefNumber();
+                args[i++] = t.getAccountNumber();
+                args[i++] = Timestamp.valueOf(t.getDateTime());
+                args[i++] = t.getDescription();
+                args[i++] = valueOrZero(t.getWithdrawals());
+                args[i++] = valueOrZero(t.getCredit());
+                args[i++] = valueOrZero(t.getRunningBalance());
+                args[i++] = t.getFileUploadId();
+                args[i++] = createdAt;
+            }
+            if (onDuplicate == null) {
+                inserted += jdbcTemplate.update(multiRowSql(INSERT_TRANSACTIONS, TRANSACTION_ROW, slice.size()), args);
+            } else {
+                jdbcTemplate.update(multiRowSql(INSERT_TRANSACTIONS, TRANSACTION_ROW, slice.size()) + onDuplicate, args);
+                inserted += countInserted(slice, createdAt);
+            }
+        }
+
+        log.debug("Bulk inserted {} of {} transactions", inserted, transactions.size());
+        return inserted;
+    }
+
+    /**
+     * Creates every account in the collection that does not exist yet, in one set-based statement per slice.
+     * Existing accounts are left untouched (ON DUPLICATE KEY UPDATE on the unique account_number).
+     * Account numbers are inserted in sorted order so concurrent uploads take index locks in the same order.
+     *
+     * @return number of accounts created
+     */
+    public int insertMissingAccounts(Collection<String> accountNumbers) {
+        if (accountNumbers.isEmpty()) {
+            return 0;
+        }
+
+        List<String> sorted = new ArrayList<>(new TreeSet<>(accountNumbers));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int created = 0;
+        for (int from = 0; from < sorted.size(); from += ROWS_PER_STATEMENT) {
+            List<String> slice = sorted.subList(from, Math.min(from + ROWS_PER_STATEMENT, sorted.size()));
+            Object[] args = new Object[slice.size() * 3];
+            int i = 0;
+            for (String accountNumber : slice) {
+                args[i++] = accountNumber;
+                args[i++] = now;
+                args[i++] = now;
+            }
+            created += jdbcTemplate.update(multiRowSql(INSERT_ACCOUNTS, ACCOUNT_ROW, slice.size())
+                    + " ON DUPLICATE KEY UPDATE id = id", args);
+        }
+
+        log.debug("Created {} new accounts out of {} requested", created, sorted.size());
+        return created;
+    }
+
+    private int countInserted(List<Transaction> slice, Timestamp createdAt) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM transactions WHERE created_at = ? AND txn_ref_number IN (");
+        Object[] args = new Object[slice.size() + 1];
+        args[0] = createdAt;
+        for (int i = 0; i < slice.size(); i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+            args[i + 1] = slice.get(i).getTxnRefNumber();
+        }
+        Integer count = jdbcTemplate.queryForObject(sql.append(")").toString(), Integer.class, args);
+        return count != null ? count : 0;
+    }
+
+    private static String multiRowSql(String prefix, String row, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (row.length() + 2));
+        sql.append(prefix);
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private static BigDecimal valueOrZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,108 @@
+package com.estatement.repository;
+
+import com.estatement.dto.TransactionDTO;
+import com.estatement.entity.Transaction;
+import com.estatement.util.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination over transactions ordered by {@code (dateTime, id)}.
+ * A page is read as {@code WHERE (date_time, id) > cursor ORDER BY date_time, id LIMIT size + 1}
+ * (mirrored for descending order and for previous pages), so it walks the index from the cursor on
+ * instead of skipping every earlier row like {@code OFFSET} does, and no {@code COUNT(*)} is run.
+ * Page 5,000 costs the same as page 1.
+ * Rows are selected straight into DTOs, as in {@link TransactionReadRepository}.
+ */
+@Repository
+public class TransactionKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Reads the page at {@code cursor}, or the first page when it is null, of the rows matching {@code filter}.
+     * The cursor's direction wins over {@code ascending}, so a listing keeps its order while it is paged.
+     */
+    public CursorPage findPage(Specification<Transaction> filter, PageCursor cursor, boolean ascending, int size) {
+        int pageSize = Math.max(1, size);
+        boolean listAscending = cursor != null ? cursor.isAscending() : ascending;
+        boolean backwards = cursor != null && cursor.isBefore();
+        // Previous pages are read in reverse from the cursor, then turned around
+        boolean queryAscending = listAscending != backwards;
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionDTO> query = cb.createQuery(TransactionDTO.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        Path<LocalDateTime> dateTime = root.get("dateTime");
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filtered = filter.toPredicate(root, query, cb);
+        if (filtered != null) {
+            predicates.add(filtered);
+        }
+        if (cursor != null) {
+            predicates.add(seek(cb, dateTime, id, cursor, queryAscending));
+        }
+        query.select(TransactionReadRepository.columns(cb, root))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(queryAscending
+                        ? List.of(cb.asc(dateTime), cb.asc(id))
+                        : List.of(cb.desc(dateTime), cb.desc(id)));
+
+        List<TransactionDTO> rows = new ArrayList<>(entityManager.createQuery(query)
+                .setMaxResults(pageSize + 1)
+                .getResultList());
+        boolean more = rows.size() > pageSize;
+        if (more) {
+            rows.remove(pageSize);
+        }
+        if (backwards) {
+            Collections.reverse(rows);
+        }
+
+        if (rows.isEmpty()) {
+            return new CursorPage(rows, null, null);
+        }
+        TransactionDTO first = rows.get(0);
+        TransactionDTO last = rows.get(rows.size() - 1);
+        // Going forward there is a page before (the one the cursor came from) and one after if more rows came back;
+        // going backwards it is the other way round
+        boolean hasNext = backwards || more;
+        boolean hasPrevious = backwards ? more : cursor != null;
+        return new CursorPage(rows,
+                hasNext ? PageCursor.after(last.getDateTime(), last.getId(), listAscending).encode() : null,
+                hasPrevious ? PageCursor.before(first.getDateTime(), first.getId(), listAscending).encode() : null);
+    }
+
+    // (date_time, id) beyond the cursor; the redundant bound on date_time alone gives MySQL a plain index range
+    private static Predicate seek(CriteriaBuilder cb, Path<LocalDateTime> dateTime, Path<Long> id,
+                                  PageCursor cursor, boolean ascending) {
+        LocalDateTime key = cursor.getDateTime();
+        if (ascending) {
+            return cb.and(cb.greaterThanOrEqualTo(dateTime, key),
+                    cb.or(cb.greaterThan(dateTime, key), cb.greaterThan(id, cursor.getId())));
+        }
+        return cb.and(cb.lessThanOrEqualTo(dateTime, key),
+                cb.or(cb.lessThan(dateTime, key), cb.lessThan(id, cursor.getId())));
+    }
+
+    /**
+     * One keyset page in listing order, with the cursors of its neighbours (null where there is none).
+     */
+    public record CursorPage(List<TransactionDTO> rows, String nextCursor, String previousCursor) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.estatement.repository;
+
+import com.estatement.dto.TransactionDTO;
+import com.estatement.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Read-only transaction pages selected straight into {@link TransactionDTO}s with a constructor expression.
+ * Only the columns the DTO shows are read, and no entities are created, so nothing enters the persistence
+ * context and there are no snapshots for dirty checking to keep.
+ * The formatted fields are left empty for {@link com.estatement.util.TransactionMapper#format}.
+ */
+@Repository
+public class TransactionReadRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Same rows, order and totals as {@code TransactionRepository.findAll(filter, pageable)}.
+     * The count query is skipped when the page itself shows the total, e.g. a short first or last page.
+     */
+    public Page<TransactionDTO> findPage(Specification<Transaction> filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionDTO> query = cb.createQuery(TransactionDTO.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        Predicate filtered = filter.toPredicate(root, query, cb);
+        if (filtered != null) {
+            query.where(filtered);
+        }
+        query.select(columns(cb, root))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<TransactionDTO> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<TransactionDTO> rows = typedQuery.getResultList();
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(filter));
+    }
+
+    // The columns of a TransactionDTO, in the order of its projection constructor
+    static CompoundSelection<TransactionDTO> columns(CriteriaBuilder cb, Root<Transaction> root) {
+        return cb.construct(TransactionDTO.class,
+                root.get("id"), root.get("txnRefNumber"), root.get("accountNumber"), root.get("dateTime"),
+                root.get("description"), root.get("withdrawals"), root.get("credit"), root.get("runningBalance"));
+    }
+
+    private long count(Specification<Transaction> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        Predicate filtered = filter.toPredicate(root, query, cb);
+        if (filtered != null) {
+            query.where(filtered);
+        }
+        query.select(cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
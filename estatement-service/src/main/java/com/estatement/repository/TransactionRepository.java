@@ -1,18 +1,23 @@
 package com.estatement.repository;
 
+import com.estatement.dto.BalanceWindow;
 import com.estatement.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+// Searches combine TransactionSpecifications, so only the criteria actually given reach the SQL
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
 
     // Find by account number with pagination
     Page<Transaction> findByAccountNumber(String accountNumber, Pageable pageable);
@@ -27,22 +32,6 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             Pageable pageable
     );
 
-    // Advanced search with multiple criteria
-    @Query("SELECT t FROM Transaction t WHERE " +
-            "(:accountNumber IS NULL OR t.accountNumber = :accountNumber) AND " +
-            "(:startDate IS NULL OR t.dateTime >= :startDate) AND " +
-            "(:endDate IS NULL OR t.dateTime <= :endDate) AND " +
-            "(:description IS NULL OR LOWER(t.description) LIKE LOWER(CONCAT('%', :description, '%'))) AND " +
-            "(:txnRefNumber IS NULL OR t.txnRefNumber = :txnRefNumber)")
-    Page<Transaction> advancedSearch(
-            @Param("accountNumber") String accountNumber,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            @Param("description") String description,
-            @Param("txnRefNumber") String txnRefNumber,
-            Pageable pageable
-    );
-
     // Get all unique account numbers
     @Query("SELECT DISTINCT t.accountNumber FROM Transaction t ORDER BY t.accountNumber")
     List<String> findAllUniqueAccountNumbers();
@@ -55,4 +44,42 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query("SELECT t.txnRefNumber FROM Transaction t WHERE t.txnRefNumber IN :txnRefNumbers")
     Set<String> findExistingTxnRefNumbers(@Param("txnRefNumbers") Set<String> txnRefNumbers);
+
+    // Per account, the earliest of the rows an upload actually inserted
+    @Query("SELECT new com.estatement.dto.BalanceWindow(t.accountNumber, MIN(t.dateTime)) " +
+            "FROM Transaction t WHERE t.fileUploadId = :fileUploadId GROUP BY t.accountNumber")
+    List<BalanceWindow> findBalanceWindowsByFileUploadId(@Param("fileUploadId") Long fileUploadId);
+
+    // Same, with the rows of several uploads merged into one window per account
+    @Query("SELECT new com.estatement.dto.BalanceWindow(t.accountNumber, MIN(t.dateTime)) " +
+            "FROM Transaction t WHERE t.fileUploadId IN :fileUploadIds GROUP BY t.accountNumber")
+    List<BalanceWindow> findBalanceWindowsByFileUploadIds(@Param("fileUploadIds") Collection<Long> fileUploadIds);
+
+    // Latest transaction by account, ties on dateTime broken by insertion order
+    Transaction findFirstByAccountNumberOrderByDateTimeDescIdDesc(String accountNumber);
+
+    // Last transaction strictly before the given time; its running balance opens an incremental recalculation
+    Transaction findFirstByAccountNumberAndDateTimeBeforeOrderByDateTimeDescIdDesc(String accountNumber, LocalDateTime dateTime);
+
+    List<Transaction> findByAccountNumberAndDateTimeGreaterThanEqualOrderByDateTimeAscIdAsc(
+            String accountNumber, LocalDateTime from);
+
+    // Recomputes running balances of the whole ledger inside MySQL, ordered by (date_time, id) per account
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE transactions t JOIN (" +
+            "SELECT id, SUM(COALESCE(credit, 0) - COALESCE(withdrawals, 0)) OVER (" +
+            "PARTITION BY account_number ORDER BY date_time, id " +
+            "ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS balance " +
+            "FROM transactions) b ON b.id = t.id " +
+            "SET t.running_balance = b.balance", nativeQuery = true)
+    int recomputeAllRunningBalances();
+
+    // Same as recomputeAllRunningBalances, restricted to one account
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE transactions t JOIN (" +
+            "SELECT id, SUM(COALESCE(credit, 0) - COALESCE(withdrawals, 0)) OVER (" +
+            "ORDER BY date_time, id ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS balance " +
+            "FROM transactions WHERE account_number = :accountNumber) b ON b.id = t.id " +
+            "SET t.running_balance = b.balance", nativeQuery = true)
+    int recomputeRunningBalances(@Param("accountNumber") String accountNumber);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.estatement.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+/**
+ * Sort orders allowed for transaction listings, limited to what MySQL can serve without sorting
+ * the whole table. Every order ends with {@code id}, so pages are stable when the sort key repeats.
+ */
+public final class TransactionSorts {
+
+    // An index returns rows in this order: idx_account_date / idx_date_time, uk_txn_ref_number
+    private static final Set<String> INDEXED = Set.of("dateTime", "txnRefNumber");
+
+    // Not indexed; allowed within one account, where only that account's rows are sorted
+    private static final Set<String> ACCOUNT_SCOPED = Set.of("withdrawals", "credit", "runningBalance");
+
+    private TransactionSorts() {
+    }
+
+    /**
+     * @param singleAccount whether the listing is restricted to one account number
+     * @throws IllegalArgumentException for unknown properties, and for unindexed ones across accounts
+     */
+    public static Sort of(String sortBy, String sortDirection, boolean singleAccount) {
+        String property = sortBy == null || sortBy.isBlank() ? "dateTime" : sortBy;
+        if (!INDEXED.contains(property) && !(singleAccount && ACCOUNT_SCOPED.contains(property))) {
+            throw new IllegalArgumentException(ACCOUNT_SCOPED.contains(property)
+                    ? "Sorting by " + property + " needs an account number"
+                    : "Cannot sort by " + property);
+        }
+        Sort.Direction direction = "ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return Sort.by(direction, property, "id");
+    }
+}
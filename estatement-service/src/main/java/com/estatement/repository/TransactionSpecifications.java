@@ -0,0 +1,86 @@
+package com.estatement.repository;
+
+import com.estatement.dto.SearchCriteria;
+import com.estatement.entity.Transaction;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transaction filters as JPA specifications; only the criteria that are set become predicates.
+ * A catch-all {@code (:x IS NULL OR col = :x)} query leaves MySQL one plan for every combination, usually
+ * a scan; here each combination gets its own SQL, so account and date filters reach idx_account_date.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<Transaction> hasAccountNumber(String accountNumber) {
+        return (root, query, cb) -> cb.equal(root.get("accountNumber"), accountNumber);
+    }
+
+    // Both ends inclusive
+    public static Specification<Transaction> inDateRange(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> cb.between(root.get("dateTime"), from, to);
+    }
+
+    // Blank strings count as not set; descriptions are matched with LIKE
+    public static Specification<Transaction> matching(SearchCriteria criteria) {
+        return matching(criteria, null);
+    }
+
+    /**
+     * Like {@link #matching(SearchCriteria)}, with the description matched through the FULLTEXT index
+     * while {@code descriptionIndex} is available: each word as a prefix, all of them required.
+     */
+    public static Specification<Transaction> matching(SearchCriteria criteria, DescriptionSearchIndex descriptionIndex) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (hasText(criteria.getAccountNumber())) {
+                predicates.add(cb.equal(root.get("accountNumber"), criteria.getAccountNumber()));
+            }
+            if (criteria.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("dateTime"), criteria.getStartDate()));
+            }
+            if (criteria.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("dateTime"), criteria.getEndDate()));
+            }
+            if (hasText(criteria.getDescription())) {
+                DescriptionSearchIndex.DescriptionQuery fullText = descriptionIndex != null && descriptionIndex.isAvailable()
+                        ? descriptionIndex.parse(criteria.getDescription())
+                        : null;
+                if (fullText != null && !fullText.booleanQuery().isEmpty()) {
+                    predicates.add(cb.greaterThan(cb.function("match_against", Double.class,
+                            root.get("description"), cb.literal(fullText.booleanQuery())), 0.0));
+                    // Too short for the index; only checked on the rows the index found
+                    for (String word : fullText.shortWords()) {
+                        predicates.add(cb.like(cb.lower(root.get("description")), "%" + word + "%"));
+                    }
+                } else {
+                    predicates.add(cb.like(cb.lower(root.get("description")),
+                            "%" + criteria.getDescription().toLowerCase() + "%"));
+                }
+            }
+            if (hasText(criteria.getTxnRefNumber())) {
+                predicates.add(cb.equal(root.get("txnRefNumber"), criteria.getTxnRefNumber()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static boolean isSingleAccount(SearchCriteria criteria) {
+        return hasText(criteria.getAccountNumber());
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,26 @@
+package com.estatement.repository;
+
+import com.estatement.entity.UploadSession;
+import com.estatement.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Serializes chunk bookkeeping and completion of one session
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :id")
+    Optional<UploadSession> findByIdForUpdate(@Param("id") String id);
+
+    // Unfinished sessions idle since before the cutoff
+    List<UploadSession> findByStatusInAndUpdatedAtBefore(Collection<String> statuses, LocalDateTime cutoff);
+
+    long countByUploadedByAndStatusInAndUpdatedAtAfter(User uploadedBy, Collection<String> statuses, LocalDateTime cutoff);
+}
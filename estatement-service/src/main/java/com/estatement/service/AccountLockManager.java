@@ -0,0 +1,177 @@
+package com.estatement.service;
+
+import com.estatement.config.BalanceProperties;
+import com.estatement.dto.BalanceWindow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance work per account inside the application, before any database connection is taken.
+ * Accounts hash onto {@code app.balance.lock-stripes} fair locks, so concurrent uploads touching the same
+ * account queue here in arrival order instead of on the account's row lock, each holding a connection.
+ * A thread holds one stripe at a time while callers walk accounts in sorted order, or takes several at once
+ * in stripe order through {@link #callLocked}, so the locks cannot deadlock; the {@code SELECT ... FOR UPDATE}
+ * in the balance methods stays as the guard between application instances and now normally finds the row free.
+ */
+@Component
+@Slf4j
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+    // Recalculations waiting for their account's stripe, keyed by account number
+    private final Map<String, PendingRecalculation> pending = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public AccountLockManager(BalanceProperties balanceProperties) {
+        this.stripes = new ReentrantLock[Math.max(1, balanceProperties.getLockStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.timeoutMs = balanceProperties.getLockTimeoutMs();
+    }
+
+    /**
+     * Runs {@code work} while holding the account's stripe.
+     *
+     * @throws RuntimeException when the stripe is not free within {@code app.balance.lock-timeout-ms}
+     */
+    public void runLocked(String accountNumber, Runnable work) {
+        ReentrantLock lock = acquire(accountNumber);
+        try {
+            work.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} while holding the stripes of all the given accounts. They are taken before {@code work}
+     * opens a transaction and in stripe order, so callers with overlapping accounts cannot deadlock each other.
+     *
+     * @throws RuntimeException when a stripe is not free within {@code app.balance.lock-timeout-ms}
+     */
+    public <T> T callLocked(Collection<String> accountNumbers, Supplier<T> work) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        accountNumbers.forEach(accountNumber -> indexes.add(stripeIndex(accountNumber)));
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                held.add(acquire(index, "stripe " + index));
+            }
+            return work.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code recompute} for the window under the account's stripe. While a recalculation of the account
+     * is running, later windows for it are merged into one queued recalculation, which runs once on the thread
+     * that queued it first; the others wait for it. The merged window starts at the earliest of them, so the one
+     * recalculation from there covers every row they would have recomputed one by one.
+     * Inside a transaction the window runs on its own, since other threads cannot see the caller's rows yet.
+     */
+    public void recalculate(BalanceWindow window, Consumer<BalanceWindow> recompute) {
+        String accountNumber = window.getAccountNumber();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            runLocked(accountNumber, () -> recompute.accept(window));
+            return;
+        }
+
+        PendingRecalculation created = new PendingRecalculation(new BalanceWindow(accountNumber, window.getFrom()));
+        PendingRecalculation queued = pending.merge(accountNumber, created, (existing, added) -> {
+            existing.window.merge(added.window);
+            return existing;
+        });
+        if (queued != created) {
+            coalescedCount.incrementAndGet();
+            log.debug("Merged balance window of account {} into the queued recalculation", accountNumber);
+            await(queued);
+            return;
+        }
+
+        ReentrantLock lock;
+        try {
+            lock = acquire(accountNumber);
+        } catch (RuntimeException e) {
+            pending.remove(accountNumber, created);
+            created.done.completeExceptionally(e);
+            throw e;
+        }
+        try {
+            // From here on windows for the account start a new queued recalculation
+            pending.remove(accountNumber, created);
+            recompute.accept(created.window);
+            created.done.complete(null);
+        } catch (RuntimeException e) {
+            created.done.completeExceptionally(e);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Recalculations that rode along with another one instead of running themselves
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private ReentrantLock acquire(String accountNumber) {
+        return acquire(stripeIndex(accountNumber), "account " + accountNumber);
+    }
+
+    private ReentrantLock acquire(int index, String holder) {
+        ReentrantLock lock = stripes[index];
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Timed out waiting for the balance lock of " + holder);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for the balance lock of " + holder, e);
+        }
+        return lock;
+    }
+
+    private int stripeIndex(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), stripes.length);
+    }
+
+    private static void await(PendingRecalculation queued) {
+        try {
+            queued.done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class PendingRecalculation {
+        private final BalanceWindow window;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingRecalculation(BalanceWindow window) {
+            this.window = window;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.estatement.service;
 
+import com.estatement.config.BalanceProperties;
+import com.estatement.dto.BalanceWindow;
 import com.estatement.entity.Transaction;
 import com.estatement.entity.Account;
 import com.estatement.repository.TransactionRepository;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Comparator;
 import java.util.stream.Collectors;
@@ -21,6 +24,7 @@ public class BalanceCalculationService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final BalanceProperties balanceProperties;
 
     /**
      * Calculate running balance for a specific account
@@ -30,6 +34,11 @@ public class BalanceCalculationService {
     public void calculateRunningBalanceForAccount(String accountNumber) {
         log.info("Calculating running balance for account: {}", accountNumber);
 
+        if (balanceProperties.getStrategy() == BalanceProperties.Strategy.SQL) {
+            recalculateAccountInDatabase(accountNumber);
+            return;
+        }
+
         try {
             // Get all transactions for this account, sorted by date and time
             List<Transaction> transactions = transactionRepository
@@ -75,6 +84,62 @@ public class BalanceCalculationService {
         }
     }
 
+    /**
+     * Calculate running balance for an account starting at the given time only.
+     * The opening balance is taken from the last transaction before {@code from};
+     * transactions before it are neither loaded nor rewritten.
+     */
+    @Transactional
+    public void calculateRunningBalanceForAccount(String accountNumber, LocalDateTime from) {
+        Account account = accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found for update: " + accountNumber));
+
+        List<Transaction> suffix = transactionRepository
+                .findByAccountNumberAndDateTimeGreaterThanEqualOrderByDateTimeAscIdAsc(accountNumber, from);
+        BigDecimal runningBalance = recalculateRange(accountNumber, from, suffix);
+
+        account.setCurrentBalance(runningBalance);
+        accountRepository.save(account);
+        log.debug("Recalculated {} transactions of account {} from {}. Final balance: {}",
+                suffix.size(), accountNumber, from, runningBalance);
+    }
+
+    /**
+     * Incremental recalculation after new transactions were inserted for an account.
+     * Rows from the start of the window of the new transactions to the end of the account are recomputed,
+     * opening with the balance of the row just before it; earlier rows are not touched.
+     * For the usual append-only upload the window is the end of the account, so the cost is O(new rows).
+     * Later rows are recomputed rather than shifted by the new rows' combined amount: another upload's rows may have
+     * been committed in between and already counted by its own pass, and a shift would add them twice.
+     */
+    @Transactional
+    public void applyIncrementalBalance(BalanceWindow window) {
+        calculateRunningBalanceForAccount(window.getAccountNumber(), window.getFrom());
+    }
+
+    /**
+     * Recomputes running balances of the given rows (ordered by dateTime, id), opening with
+     * the balance of the last transaction before {@code from}. Returns the closing balance.
+     */
+    private BigDecimal recalculateRange(String accountNumber, LocalDateTime from, List<Transaction> transactions) {
+        Transaction previous = transactionRepository
+                .findFirstByAccountNumberAndDateTimeBeforeOrderByDateTimeDescIdDesc(accountNumber, from);
+        BigDecimal runningBalance = previous != null && previous.getRunningBalance() != null
+                ? previous.getRunningBalance()
+                : BigDecimal.ZERO;
+
+        for (Transaction transaction : transactions) {
+            BigDecimal credit = transaction.getCredit() != null ? transaction.getCredit() : BigDecimal.ZERO;
+            BigDecimal withdrawals = transaction.getWithdrawals() != null ? transaction.getWithdrawals() : BigDecimal.ZERO;
+
+            runningBalance = runningBalance.add(credit).subtract(withdrawals);
+            transaction.setRunningBalance(runningBalance);
+        }
+
+        transactionRepository.saveAll(transactions);
+        return runningBalance;
+    }
+
     /**
      * Recalculate running balances for all accounts
      * Useful when multiple files are uploaded out of order
@@ -83,6 +148,11 @@ public class BalanceCalculationService {
     public void recalculateAllBalances() {
         log.info("Starting recalculation of running balances for all accounts");
 
+        if (balanceProperties.getStrategy() == BalanceProperties.Strategy.SQL) {
+            recalculateAllBalancesInDatabase();
+            return;
+        }
+
         try {
             // Get all unique account numbers
             List<String> accountNumbers = transactionRepository.findAllUniqueAccountNumbers();
@@ -101,6 +171,34 @@ public class BalanceCalculationService {
         }
     }
 
+    /**
+     * Set-based full ledger rebuild: MySQL computes every running balance with
+     * SUM(credit - withdrawals) OVER (PARTITION BY account_number ORDER BY date_time, id)
+     * in one UPDATE ... JOIN, then account balances are refreshed from the totals.
+     * No transaction is loaded into the JVM.
+     */
+    @Transactional
+    public void recalculateAllBalancesInDatabase() {
+        long start = System.currentTimeMillis();
+        int transactions = transactionRepository.recomputeAllRunningBalances();
+        int accounts = accountRepository.refreshAllCurrentBalances();
+        log.info("Recalculated {} running balances and {} account balances in the database in {} ms",
+                transactions, accounts, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Set-based recalculation of a single account, done entirely in the database.
+     */
+    @Transactional
+    public void recalculateAccountInDatabase(String accountNumber) {
+        accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found for update: " + accountNumber));
+
+        int transactions = transactionRepository.recomputeRunningBalances(accountNumber);
+        accountRepository.refreshCurrentBalance(accountNumber);
+        log.debug("Recalculated {} running balances of account {} in the database", transactions, accountNumber);
+    }
+
     /**
      * Calculate running balance for a list of transactions
      * Used during CSV file processing
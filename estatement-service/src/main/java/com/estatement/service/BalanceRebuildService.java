@@ -0,0 +1,238 @@
+package com.estatement.service;
+
+import com.estatement.config.BalanceProperties;
+import com.estatement.entity.BalanceRebuildRun;
+import com.estatement.repository.AccountRepository;
+import com.estatement.repository.BalanceRebuildRunRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel rebuild of every account's running balances.
+ * Accounts are fanned out over a small worker pool, each account recalculated in its own short
+ * transaction, and a checkpoint is persisted as the contiguous prefix of finished accounts grows.
+ * Starting a rebuild while an earlier one is unfinished (stopped, failed or cut off by a restart)
+ * resumes it after its last checkpoint.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceRebuildService {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_INTERRUPTED = "INTERRUPTED";
+    // An unfinished run that was set aside by a fresh start and will not be resumed
+    public static final String STATUS_ABANDONED = "ABANDONED";
+
+    private final BalanceCalculationService balanceCalculationService;
+    private final AccountLockManager accountLockManager;
+    private final SearchResultCache searchResultCache;
+    private final AccountRepository accountRepository;
+    private final BalanceRebuildRunRepository rebuildRunRepository;
+    private final BalanceProperties balanceProperties;
+    private final DataSource dataSource;
+
+    private volatile Thread coordinator;
+    private volatile boolean stopRequested;
+    private volatile BalanceRebuildRun currentRun;
+
+    /**
+     * Starts a rebuild in the background, or resumes the latest unfinished one.
+     * With {@code fresh} the unfinished run is marked {@link #STATUS_ABANDONED} instead and a new run starts
+     * from the first account, e.g. when backdated uploads have invalidated its checkpoint prefix.
+     * Returns the run that is now in progress; calling it while a rebuild is running just returns that run.
+     */
+    public synchronized BalanceRebuildRun start(boolean fresh) {
+        if (coordinator != null && coordinator.isAlive()) {
+            return currentRun;
+        }
+
+        Optional<BalanceRebuildRun> unfinished = rebuildRunRepository
+                .findFirstByStatusInOrderByStartedAtDesc(List.of(STATUS_RUNNING, STATUS_INTERRUPTED, STATUS_FAILED));
+        if (fresh && unfinished.isPresent()) {
+            BalanceRebuildRun abandoned = unfinished.get();
+            abandoned.setStatus(STATUS_ABANDONED);
+            abandoned.setUpdatedAt(LocalDateTime.now());
+            rebuildRunRepository.save(abandoned);
+            log.info("Abandoned balance rebuild {} to start a fresh one", abandoned.getId());
+            unfinished = Optional.empty();
+        }
+        BalanceRebuildRun run = unfinished.orElseGet(BalanceRebuildRun::new);
+        boolean resuming = run.getId() != null;
+
+        List<String> accountNumbers = run.getLastAccountNumber() != null
+                ? accountRepository.findAccountNumbersAfter(run.getLastAccountNumber())
+                : accountRepository.findAllAccountNumbers();
+
+        if (!resuming) {
+            run.setStartedAt(LocalDateTime.now());
+        }
+        // Only the checkpoint prefix counts as done: accounts finished past it are recalculated again,
+        // so counting them from the previous attempt would report them twice
+        int skipped = run.getLastAccountNumber() != null
+                ? (int) accountRepository.countByAccountNumberLessThanEqual(run.getLastAccountNumber())
+                : 0;
+        run.setStatus(STATUS_RUNNING);
+        run.setProcessedAccounts(skipped);
+        run.setFailedAccounts(0);
+        run.setErrorMessage(null);
+        run.setFinishedAt(null);
+        run.setTotalAccounts(skipped + accountNumbers.size());
+        run.setUpdatedAt(LocalDateTime.now());
+        run = rebuildRunRepository.save(run);
+
+        log.info("{} balance rebuild {} with {} accounts to go (parallelism {})",
+                resuming ? "Resuming" : "Starting", run.getId(), accountNumbers.size(), effectiveParallelism());
+
+        currentRun = run;
+        stopRequested = false;
+        BalanceRebuildRun started = run;
+        coordinator = new Thread(() -> execute(started, accountNumbers), "balance-rebuild");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return run;
+    }
+
+    /**
+     * Asks the running rebuild to stop; accounts already handed to workers finish first.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public Optional<BalanceRebuildRun> getLatestRun() {
+        BalanceRebuildRun run = currentRun;
+        return run != null ? Optional.of(run) : rebuildRunRepository.findFirstByOrderByStartedAtDesc();
+    }
+
+    private void execute(BalanceRebuildRun run, List<String> accountNumbers) {
+        int parallelism = effectiveParallelism();
+        int checkpointInterval = Math.max(1, balanceProperties.getRebuildCheckpointInterval());
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                r -> new Thread(r, "balance-rebuild-" + threadCounter.incrementAndGet()));
+        CompletionService<AccountOutcome> completion = new ExecutorCompletionService<>(workers);
+
+        boolean[] done = new boolean[accountNumbers.size()];
+        int next = 0;
+        int outstanding = 0;
+        int finishedPrefix = 0;
+        int sinceCheckpoint = 0;
+
+        try {
+            while (next < accountNumbers.size() || outstanding > 0) {
+                // Keep a bounded number of accounts in flight so memory and connections stay flat
+                while (!stopRequested && next < accountNumbers.size() && outstanding < parallelism * 2) {
+                    int index = next++;
+                    String accountNumber = accountNumbers.get(index);
+                    completion.submit(() -> recalculate(index, accountNumber));
+                    outstanding++;
+                }
+                if (outstanding == 0) {
+                    break;
+                }
+
+                AccountOutcome outcome = completion.take().get();
+                outstanding--;
+                if (outcome.success()) {
+                    done[outcome.index()] = true;
+                    run.setProcessedAccounts(run.getProcessedAccounts() + 1);
+                } else {
+                    run.setFailedAccounts(run.getFailedAccounts() + 1);
+                }
+
+                while (finishedPrefix < done.length && done[finishedPrefix]) {
+                    finishedPrefix++;
+                }
+                if (++sinceCheckpoint >= checkpointInterval) {
+                    checkpoint(run, accountNumbers, finishedPrefix);
+                    sinceCheckpoint = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopRequested = true;
+        } catch (ExecutionException e) {
+            // recalculate() catches everything itself; only reached on unexpected errors
+            run.setErrorMessage(e.getMessage());
+            stopRequested = true;
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (stopRequested) {
+            run.setStatus(STATUS_INTERRUPTED);
+        } else if (run.getFailedAccounts() > 0) {
+            run.setStatus(STATUS_FAILED);
+            run.setErrorMessage(run.getFailedAccounts() + " accounts could not be recalculated; start the rebuild again to retry them");
+        } else {
+            run.setStatus(STATUS_COMPLETED);
+            run.setFinishedAt(LocalDateTime.now());
+        }
+        checkpoint(run, accountNumbers, finishedPrefix);
+        log.info("Balance rebuild {} ended with status {}: {}/{} accounts processed, {} failed",
+                run.getId(), run.getStatus(), run.getProcessedAccounts(), run.getTotalAccounts(), run.getFailedAccounts());
+    }
+
+    private AccountOutcome recalculate(int index, String accountNumber) {
+        try {
+            accountLockManager.runLocked(accountNumber,
+                    () -> balanceCalculationService.calculateRunningBalanceForAccount(accountNumber));
+            searchResultCache.evictAccount(accountNumber);
+            return new AccountOutcome(index, true);
+        } catch (Exception e) {
+            log.warn("Balance rebuild failed for account {}: {}", accountNumber, e.getMessage());
+            return new AccountOutcome(index, false);
+        }
+    }
+
+    private void checkpoint(BalanceRebuildRun run, List<String> accountNumbers, int finishedPrefix) {
+        if (finishedPrefix > 0) {
+            run.setLastAccountNumber(accountNumbers.get(finishedPrefix - 1));
+        }
+        run.setUpdatedAt(LocalDateTime.now());
+        currentRun = rebuildRunRepository.save(run);
+    }
+
+    /**
+     * Configured parallelism, capped so the rebuild never takes more than the connection pool
+     * can give without starving request traffic.
+     */
+    private int effectiveParallelism() {
+        int parallelism = Math.max(1, balanceProperties.getRebuildParallelism());
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                parallelism = Math.min(parallelism, Math.max(1, poolSize - balanceProperties.getRebuildConnectionReserve()));
+            }
+        } catch (SQLException e) {
+            log.debug("Could not inspect the connection pool: {}", e.getMessage());
+        }
+        return parallelism;
+    }
+
+    private record AccountOutcome(int index, boolean success) {
+    }
+}
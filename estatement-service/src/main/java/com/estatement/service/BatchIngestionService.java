@@ -0,0 +1,199 @@
+package com.estatement.service;
+
+import com.estatement.config.IngestionProperties;
+import com.estatement.entity.FileUpload;
+import com.estatement.entity.User;
+import com.estatement.repository.FileUploadRepository;
+import com.estatement.util.StatementStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Batch upload: many statement files (or zip archives of them) ingested in parallel, with the balances
+ * of all touched accounts recalculated once at the end instead of after every file.
+ * Every CSV still gets its own {@link FileUpload} with status and counts.
+ */
+@Service
+@Slf4j
+public class BatchIngestionService {
+
+    private final IngestionJobService ingestionJobService;
+    private final FileProcessingService fileProcessingService;
+    private final FileStorageService fileStorageService;
+    private final FileUploadRepository fileUploadRepository;
+    private final IngestionProgressTracker progressTracker;
+    private final IngestionProperties ingestionProperties;
+    private final ThreadPoolTaskExecutor ingestionExecutor;
+    private final ExecutorService ingestionBatchPool;
+
+    public BatchIngestionService(IngestionJobService ingestionJobService,
+                                 FileProcessingService fileProcessingService,
+                                 FileStorageService fileStorageService,
+                                 FileUploadRepository fileUploadRepository,
+                                 IngestionProgressTracker progressTracker,
+                                 IngestionProperties ingestionProperties,
+                                 @Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor,
+                                 @Qualifier("ingestionBatchPool") ExecutorService ingestionBatchPool) {
+        this.ingestionJobService = ingestionJobService;
+        this.fileProcessingService = fileProcessingService;
+        this.fileStorageService = fileStorageService;
+        this.fileUploadRepository = fileUploadRepository;
+        this.progressTracker = progressTracker;
+        this.ingestionProperties = ingestionProperties;
+        this.ingestionExecutor = ingestionExecutor;
+        this.ingestionBatchPool = ingestionBatchPool;
+    }
+
+    /**
+     * Stores the files and creates a QUEUED upload for each CSV, one per entry for zip archives.
+     * Files with the same content as an earlier completed upload are saved as {@code DUPLICATE} right away.
+     *
+     * @throws IOException when a file cannot be read or a zip archive contains no CSV file
+     */
+    public List<FileUpload> store(List<MultipartFile> files, User uploadedBy) throws IOException {
+        List<FileUpload> uploads = new ArrayList<>();
+        for (MultipartFile file : files) {
+            StatementStreams.forEachCsvFile(file.getInputStream(), file.getOriginalFilename(), (filename, content) -> {
+                FileStorageService.StoredFile storedFile = fileStorageService.storeStream(content, filename);
+
+                FileUpload fileUpload = new FileUpload();
+                fileUpload.setOriginalFilename(filename);
+                fileUpload.setFilename(storedFile.filename());
+                fileUpload.setFilePath("uploads/" + storedFile.filename());
+                fileUpload.setContentHash(storedFile.contentHash());
+                fileUpload.setUploadTime(LocalDateTime.now());
+                fileUpload.setStatus(IngestionJobService.STATUS_QUEUED);
+                fileUpload.setUploadedBy(uploadedBy);
+                fileUpload = fileUploadRepository.save(fileUpload);
+
+                // The same file was imported before: link to that result instead of parsing every row again
+                if (ingestionJobService.linkToEarlierResult(fileUpload)) {
+                    fileUpload = fileUploadRepository.save(fileUpload);
+                }
+                uploads.add(fileUpload);
+            });
+        }
+        log.info("Stored batch of {} statement files from {} uploaded files", uploads.size(), files.size());
+        return uploads;
+    }
+
+    /**
+     * Queues the batch as a single job on the ingestion executor.
+     *
+     * @throws TaskRejectedException when every worker is busy and the queue is full
+     */
+    public void submit(List<FileUpload> uploads) {
+        List<Long> fileUploadIds = pendingIds(uploads);
+        fileUploadIds.forEach(progressTracker::start);
+        try {
+            ingestionExecutor.execute(() -> process(fileUploadIds));
+        } catch (TaskRejectedException e) {
+            fileUploadIds.forEach(id -> progressTracker.finish(id, IngestionProgress.Stage.FAILED));
+            throw e;
+        }
+    }
+
+    /**
+     * Processes the batch on the caller's thread, waiting for every file.
+     *
+     * @return the updated uploads, in the order given
+     */
+    public List<FileUpload> processNow(List<FileUpload> uploads) {
+        process(pendingIds(uploads));
+        return uploads.stream()
+                .map(upload -> fileUploadRepository.findById(upload.getId()).orElse(upload))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ingests the files on the shared batch pool ({@code app.ingestion.batch-parallelism} threads) without
+     * touching balances, then recalculates each affected account once from the merged windows of all files.
+     * Failed files are included too, since streaming ingestion may have committed some of their chunks.
+     * The files stay marked balance-pending until that pass has committed, so a restart in between
+     * redoes it (see {@link #resumePendingBalances}).
+     */
+    private void process(List<Long> fileUploadIds) {
+        if (fileUploadIds.isEmpty()) {
+            return;
+        }
+        log.info("Processing batch of {} uploads", fileUploadIds.size());
+        fileUploadRepository.setBalancePending(fileUploadIds, true);
+
+        int completed = 0;
+        try {
+            List<Callable<FileUpload>> tasks = fileUploadIds.stream()
+                    .map(id -> (Callable<FileUpload>) () -> ingestionJobService.process(id, false))
+                    .collect(Collectors.toList());
+            for (Future<FileUpload> result : ingestionBatchPool.invokeAll(tasks)) {
+                FileUpload processed = result.get();
+                if (processed != null && IngestionJobService.STATUS_COMPLETED.equals(processed.getStatus())) {
+                    completed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // process() catches everything itself; only reached on unexpected errors
+            log.error("Batch ingestion failed: {}", e.getMessage(), e);
+        }
+
+        recalculatePendingBalances(fileUploadIds);
+        log.info("Batch of {} uploads finished, {} completed", fileUploadIds.size(), completed);
+    }
+
+    /**
+     * Runs the balance pass of batches the previous run stored rows for but stopped before balancing,
+     * on the ingestion executor.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingBalances() {
+        if (!ingestionProperties.isResumeOnStartupEnabled()) {
+            return;
+        }
+        List<Long> pendingIds = fileUploadRepository.findByBalancePendingTrueOrderByIdAsc().stream()
+                .map(FileUpload::getId)
+                .collect(Collectors.toList());
+        if (pendingIds.isEmpty()) {
+            return;
+        }
+        log.info("Recalculating balances of {} uploads left balance-pending by the previous run", pendingIds.size());
+        try {
+            ingestionExecutor.execute(() -> recalculatePendingBalances(pendingIds));
+        } catch (TaskRejectedException e) {
+            log.warn("Ingestion queue is full, balances of uploads {} stay pending until the next restart", pendingIds);
+        }
+    }
+
+    private void recalculatePendingBalances(List<Long> fileUploadIds) {
+        try {
+            fileProcessingService.recalculateBalances(fileUploadIds);
+            fileUploadRepository.setBalancePending(fileUploadIds, false);
+        } catch (Exception e) {
+            log.error("Balance recalculation for uploads {} failed, it is retried on the next restart: {}",
+                    fileUploadIds, e.getMessage(), e);
+        }
+    }
+
+    private static List<Long> pendingIds(List<FileUpload> uploads) {
+        return uploads.stream()
+                .filter(upload -> IngestionJobService.STATUS_QUEUED.equals(upload.getStatus()))
+                .map(FileUpload::getId)
+                .collect(Collectors.toList());
+    }
+}
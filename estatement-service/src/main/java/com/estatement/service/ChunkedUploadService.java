@@ -0,0 +1,305 @@
+package com.estatement.service;
+
+import com.estatement.config.UploadProperties;
+import com.estatement.entity.FileUpload;
+import com.estatement.entity.UploadSession;
+import com.estatement.entity.User;
+import com.estatement.repository.FileUploadRepository;
+import com.estatement.repository.UploadSessionRepository;
+import com.estatement.util.StatementStreams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: a session is opened with the file size, chunks are PUT in any order
+ * (and may be resent) and written in place with {@link FileChannel#transferFrom}, so no chunk is
+ * buffered on the heap. Completing the session turns the assembled file into a regular
+ * {@link FileUpload} for the ingestion pipeline.
+ * <p>
+ * Sessions left unfinished for {@code app.upload.session-ttl-hours} are deleted with their partial file,
+ * and a user may only have {@code app.upload.max-active-sessions-per-user} unfinished sessions at a time.
+ * <p>
+ * Invalid requests fail with {@link IllegalArgumentException}, requests that do not fit the
+ * session's state with {@link IllegalStateException}, unknown sessions with {@link NoSuchElementException}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    public static final String STATUS_UPLOADING = "UPLOADING";
+    public static final String STATUS_COMPLETING = "COMPLETING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final Set<String> UNFINISHED_STATUSES = Set.of(STATUS_UPLOADING, STATUS_COMPLETING);
+
+    private static final char RECEIVED = '1';
+    private static final char MISSING = '0';
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileUploadRepository fileUploadRepository;
+    private final FileStorageService fileStorageService;
+    private final UploadProperties uploadProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @throws IllegalStateException when the user already has the maximum number of unfinished uploads
+     */
+    public UploadSession start(String filename, long totalSize, Integer requestedChunkSize, User user) {
+        if (!StatementStreams.isSupportedFilename(filename)) {
+            throw new IllegalArgumentException("Invalid file type. Only CSV files (.csv, .csv.gz or .zip) are accepted.");
+        }
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("File is empty. Please upload a valid CSV file.");
+        }
+        if (totalSize > uploadProperties.getMaxFileSize()) {
+            throw new IllegalArgumentException("File size must not exceed " + uploadProperties.getMaxFileSize() + " bytes");
+        }
+        int chunkSize = requestedChunkSize != null ? requestedChunkSize : uploadProperties.getChunkSize();
+        if (chunkSize <= 0 || chunkSize > uploadProperties.getMaxChunkSize()) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + uploadProperties.getMaxChunkSize() + " bytes");
+        }
+        long active = uploadSessionRepository.countByUploadedByAndStatusInAndUpdatedAtAfter(
+                user, UNFINISHED_STATUSES, expiryCutoff());
+        if (active >= uploadProperties.getMaxActiveSessionsPerUser()) {
+            throw new IllegalStateException("You already have " + active + " unfinished uploads; complete them or wait for them to expire");
+        }
+
+        String storedFileName = fileStorageService.newStoredFileName(filename);
+        try (FileChannel ignored = fileStorageService.openForWrite(storedFileName)) {
+            log.debug("Created {} for chunked upload of {}", storedFileName, filename);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create file " + storedFileName, e);
+        }
+
+        int totalChunks = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setOriginalFilename(filename);
+        session.setStoredFilename(storedFileName);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        session.setTotalChunks(totalChunks);
+        session.setReceivedChunks(String.valueOf(MISSING).repeat(totalChunks));
+        session.setUploadedBy(user);
+        session.setStatus(STATUS_UPLOADING);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setUpdatedAt(session.getCreatedAt());
+
+        log.info("Started chunked upload {} for {} ({} bytes in {} chunks)", session.getId(), filename, totalSize, totalChunks);
+        return uploadSessionRepository.save(session);
+    }
+
+    /**
+     * Streams one chunk from the request body into its slot of the stored file.
+     * The body must hold exactly the chunk's bytes; resending a chunk overwrites it.
+     */
+    public UploadSession writeChunk(String uploadId, int index, InputStream body, User user) throws IOException {
+        UploadSession session = getSession(uploadId, user);
+        if (!STATUS_UPLOADING.equals(session.getStatus())) {
+            throw new IllegalStateException("Upload " + uploadId + " is already being completed");
+        }
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.getTotalChunks() - 1));
+        }
+
+        long position = (long) index * session.getChunkSize();
+        long expected = Math.min(session.getChunkSize(), session.getTotalSize() - position);
+        long written = 0;
+        ReadableByteChannel source = Channels.newChannel(body);
+        try (FileChannel target = fileStorageService.openExistingForWrite(session.getStoredFilename())) {
+            while (written < expected) {
+                long transferred = target.transferFrom(source, position + written, expected - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+        }
+        if (written != expected || body.read() != -1) {
+            throw new IllegalArgumentException("Chunk " + index + " must be exactly " + expected + " bytes");
+        }
+
+        UploadSession updated = transactionTemplate.execute(status -> {
+            UploadSession locked = lockSession(uploadId);
+            if (!STATUS_UPLOADING.equals(locked.getStatus())) {
+                throw new IllegalStateException("Upload " + uploadId + " is already being completed");
+            }
+            char[] received = locked.getReceivedChunks().toCharArray();
+            received[index] = RECEIVED;
+            locked.setReceivedChunks(new String(received));
+            locked.setUpdatedAt(LocalDateTime.now());
+            return uploadSessionRepository.save(locked);
+        });
+        log.debug("Stored chunk {} of upload {} ({} bytes)", index, uploadId, written);
+        return updated;
+    }
+
+    /**
+     * Checks that every chunk arrived and registers the assembled file as a queued {@link FileUpload}.
+     * The session is claimed under its row lock, but the file is hashed and renamed after that lock is released,
+     * so a large file does not hold the row (and the connection) for the whole read; only the new name and the
+     * upload are then committed under the lock again.
+     * The hash is saved before the file moves, so a completion cut off after that (by a crash or a failed commit)
+     * is finished by calling this again, which moves the file if it has not moved yet and registers it.
+     */
+    public FileUpload complete(String uploadId, User user) {
+        getSession(uploadId, user);
+        UploadSession claimed = transactionTemplate.execute(status -> {
+            UploadSession session = lockSession(uploadId);
+            if (STATUS_COMPLETING.equals(session.getStatus()) && session.getContentHash() != null) {
+                log.info("Finishing interrupted completion of chunked upload {}", uploadId);
+                return session;
+            }
+            if (!STATUS_UPLOADING.equals(session.getStatus())) {
+                throw new IllegalStateException("Upload " + uploadId + " is already being completed");
+            }
+            List<Integer> missing = getMissingChunks(session);
+            if (!missing.isEmpty()) {
+                throw new IllegalStateException(missing.size() + " chunk(s) still missing, first is " + missing.get(0));
+            }
+            long storedSize = fileStorageService.sizeOf(session.getStoredFilename());
+            if (storedSize != session.getTotalSize()) {
+                throw new IllegalStateException("Assembled file has " + storedSize + " bytes, expected " + session.getTotalSize());
+            }
+            session.setStatus(STATUS_COMPLETING);
+            session.setUpdatedAt(LocalDateTime.now());
+            return uploadSessionRepository.save(session);
+        });
+
+        if (claimed.getContentHash() == null) {
+            // Chunks arrive in any order, so the content hash can only be taken from the assembled file
+            String hash;
+            try {
+                hash = fileStorageService.contentHashOf(claimed.getStoredFilename());
+            } catch (RuntimeException e) {
+                // Nothing has moved; let the client try again
+                transactionTemplate.executeWithoutResult(status -> {
+                    UploadSession session = lockSession(uploadId);
+                    session.setStatus(STATUS_UPLOADING);
+                    session.setUpdatedAt(LocalDateTime.now());
+                    uploadSessionRepository.save(session);
+                });
+                throw e;
+            }
+            claimed = transactionTemplate.execute(status -> {
+                UploadSession session = lockSession(uploadId);
+                session.setContentHash(hash);
+                session.setUpdatedAt(LocalDateTime.now());
+                return uploadSessionRepository.save(session);
+            });
+        }
+
+        String contentHash = claimed.getContentHash();
+        String contentAddressedName = fileStorageService.moveToContentAddress(claimed.getStoredFilename(), contentHash);
+
+        return transactionTemplate.execute(status -> {
+            UploadSession session = lockSession(uploadId);
+            if (!STATUS_COMPLETING.equals(session.getStatus())) {
+                throw new IllegalStateException("Upload " + uploadId + " is already completed");
+            }
+            session.setStoredFilename(contentAddressedName);
+
+            FileUpload fileUpload = new FileUpload();
+            fileUpload.setOriginalFilename(session.getOriginalFilename());
+            fileUpload.setFilename(contentAddressedName);
+            fileUpload.setFilePath("uploads/" + contentAddressedName);
+            fileUpload.setContentHash(contentHash);
+            fileUpload.setUploadTime(LocalDateTime.now());
+            fileUpload.setStatus(IngestionJobService.STATUS_QUEUED);
+            fileUpload.setUploadedBy(session.getUploadedBy());
+            FileUpload saved = fileUploadRepository.save(fileUpload);
+
+            session.setStatus(STATUS_COMPLETED);
+            session.setFileUploadId(saved.getId());
+            session.setUpdatedAt(LocalDateTime.now());
+            uploadSessionRepository.save(session);
+
+            log.info("Completed chunked upload {} as file upload {}", uploadId, saved.getId());
+            return saved;
+        });
+    }
+
+    /**
+     * Deletes unfinished sessions that have not received anything for {@code app.upload.session-ttl-hours},
+     * together with their partial files. A session cut off while completing may already have moved its file to
+     * the content address; that file goes too, unless an upload of the same content refers to it.
+     */
+    @Scheduled(fixedDelayString = "#{@uploadProperties.sessionCleanupIntervalMs}")
+    public void deleteExpiredSessions() {
+        LocalDateTime cutoff = expiryCutoff();
+        int deleted = 0;
+        for (UploadSession expired : uploadSessionRepository.findByStatusInAndUpdatedAtBefore(UNFINISHED_STATUSES, cutoff)) {
+            try {
+                UploadSession removed = transactionTemplate.execute(status -> {
+                    UploadSession session = uploadSessionRepository.findByIdForUpdate(expired.getId()).orElse(null);
+                    // Skip sessions that were resumed or completed since the lookup
+                    if (session == null || !UNFINISHED_STATUSES.contains(session.getStatus())
+                            || !session.getUpdatedAt().isBefore(cutoff)) {
+                        return null;
+                    }
+                    uploadSessionRepository.delete(session);
+                    return session;
+                });
+                if (removed != null) {
+                    fileStorageService.delete(removed.getStoredFilename());
+                    String contentHash = removed.getContentHash();
+                    if (contentHash != null && !fileUploadRepository.existsByContentHash(contentHash)) {
+                        fileStorageService.delete(fileStorageService.contentAddressedName(removed.getStoredFilename(), contentHash));
+                    }
+                    deleted++;
+                }
+            } catch (Exception e) {
+                log.warn("Could not delete expired upload {}: {}", expired.getId(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} chunked uploads idle since before {}", deleted, cutoff);
+        }
+    }
+
+    public UploadSession getSession(String uploadId, User user) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new NoSuchElementException("Upload not found: " + uploadId));
+        if (!session.getUploadedBy().getId().equals(user.getId())) {
+            throw new AccessDeniedException("You do not have permission to access this upload");
+        }
+        return session;
+    }
+
+    public List<Integer> getMissingChunks(UploadSession session) {
+        List<Integer> missing = new ArrayList<>();
+        String received = session.getReceivedChunks();
+        for (int i = 0; i < received.length(); i++) {
+            if (received.charAt(i) != RECEIVED) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minusHours(uploadProperties.getSessionTtlHours());
+    }
+
+    private UploadSession lockSession(String uploadId) {
+        return uploadSessionRepository.findByIdForUpdate(uploadId)
+                .orElseThrow(() -> new NoSuchElementException("Upload not found: " + uploadId));
+    }
+}
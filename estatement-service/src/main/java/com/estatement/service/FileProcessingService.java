@@ -1,25 +1,47 @@
 package com.estatement.service;
 
+import com.estatement.config.BalanceProperties;
+import com.estatement.config.IngestionProperties;
+import com.estatement.dto.BalanceWindow;
+import com.estatement.dto.IngestionCheckpoint;
+import com.estatement.dto.IngestionResult;
 import com.estatement.entity.Transaction;
 import com.estatement.entity.Account;
 import com.estatement.repository.TransactionRepository;
 import com.estatement.repository.AccountRepository;
+import com.estatement.repository.FileUploadRepository;
+import com.estatement.repository.TransactionBulkRepository;
+import com.estatement.util.ExternalTransactionSorter;
+import com.estatement.util.StagedPipeline;
+import com.estatement.util.StatementCsvParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,15 +51,41 @@ public class FileProcessingService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
-    // BalanceCalculationService is removed as it's not used here
+    private final TransactionBulkRepository transactionBulkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestionProperties ingestionProperties;
+    private final BalanceProperties balanceProperties;
+    private final IngestionProgressTracker progressTracker;
+    private final BalanceCalculationService balanceCalculationService;
+    private final QuarantineService quarantineService;
+    private final FileUploadRepository fileUploadRepository;
+    private final ForkJoinPool ingestionLanePool;
+    private final AccountLockManager accountLockManager;
+    private final SearchResultCache searchResultCache;
+
+    private static final int LANE_ATTEMPTS = 3;
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
 
+    private static final CSVFormat CSV_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    /**
+     * Parses the whole file, then deduplicates and saves it in one transaction.
+     * Balances of the affected accounts are recalculated at the end unless {@code recalculateBalances} is off,
+     * in which case the caller does it (see {@link #recalculateBalances}).
+     */
     @Transactional
-    public int processAndInsertTransactions(String filename, InputStream inputStream, Long fileUploadId) {
+    public IngestionResult processAndInsertTransactions(String filename, InputStream inputStream, Long fileUploadId,
+                                                        boolean recalculateBalances) {
         log.info("Starting CSV processing for file: {} (Upload ID: {})", filename, fileUploadId);
 
         List<Transaction> allParsedTransactions = new ArrayList<>();
+        int rejectedCount;
 
         try {
             if (inputStream == null) {
@@ -47,80 +95,98 @@ public class FileProcessingService {
             BufferedReader reader = new BufferedReader(
                     new InputStreamReader(inputStream, StandardCharsets.UTF_8));
 
-            CSVFormat csvFormat = CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader()
-                    .withIgnoreEmptyLines()
-                    .withTrim();
-
-            CSVParser csvParser = new CSVParser(reader, csvFormat);
-            log.debug("CSV Header Map: {}", csvParser.getHeaderMap());
-
-            for (CSVRecord record : csvParser) {
-                try {
-                    log.debug("Processing record {}", record.getRecordNumber());
-                    Transaction transaction = parseCSVRecordToTransaction(record, fileUploadId);
+            try (CSVParser csvParser = new CSVParser(reader, CSV_FORMAT);
+                 QuarantineService.QuarantineWriter quarantine = quarantineService.open(fileUploadId)) {
+                log.debug("CSV Header Map: {}", csvParser.getHeaderMap());
 
-                    if (transaction != null) {
-                        allParsedTransactions.add(transaction);
+                for (CSVRecord record : csvParser) {
+                    try {
+                        allParsedTransactions.add(parseCSVRecordToTransaction(record, fileUploadId));
+                    } catch (IllegalArgumentException e) {
+                        quarantine.reject(csvParser.getCurrentLineNumber(), e.getMessage(), rawRecordOf(record));
                     }
-
-                } catch (Exception e) {
-                    log.warn("Error parsing CSV record at line {}: {}", record.getRecordNumber(), e.getMessage(), e);
                 }
+                rejectedCount = quarantine.getRejectedCount();
             }
-            csvParser.close();
-            reader.close();
+            logRejectedRows(fileUploadId, rejectedCount);
 
             int parsedRecordCount = allParsedTransactions.size();
+            progressTracker.addParsed(fileUploadId, parsedRecordCount);
             log.info("Total records parsed from CSV: {}", parsedRecordCount);
             if (parsedRecordCount == 0) {
                 log.warn("No records were parsed from the CSV file!");
-                return 0;
+                return new IngestionResult(0, 0, rejectedCount);
             }
 
-            // --- START OF DUPLICATE CHECK ---
-            Set<String> parsedTxnRefNumbers = allParsedTransactions.stream()
-                    .map(Transaction::getTxnRefNumber)
-                    .collect(Collectors.toSet());
-            Set<String> existingTxnRefNumbers = transactionRepository.findExistingTxnRefNumbers(parsedTxnRefNumbers);
-            log.info("Found {} existing transactions. {} parsed in total.", existingTxnRefNumbers.size(), parsedTxnRefNumbers.size());
+            Collection<BalanceWindow> balanceWindows;
+            int newRecordCount;
+            if (isDedupeOnWrite()) {
+                // Duplicates are dropped by the unique key on txn_ref_number while inserting
+                Set<String> accountNumbers = allParsedTransactions.stream()
+                        .map(Transaction::getAccountNumber)
+                        .collect(Collectors.toSet());
+                progressTracker.stage(fileUploadId, IngestionProgress.Stage.INSERTING);
+                log.info("Saving {} parsed transactions for {} accounts, skipping duplicates...", parsedRecordCount, accountNumbers.size());
+                transactionBulkRepository.insertMissingAccounts(accountNumbers);
+                newRecordCount = transactionBulkRepository.insertTransactionsIgnoringDuplicates(allParsedTransactions);
+                balanceWindows = newRecordCount > 0
+                        ? transactionRepository.findBalanceWindowsByFileUploadId(fileUploadId)
+                        : List.of();
+            } else {
+                // --- START OF DUPLICATE CHECK ---
+                progressTracker.stage(fileUploadId, IngestionProgress.Stage.DEDUPING);
+                Map<String, Transaction> parsedByTxnRef = new LinkedHashMap<>();
+                for (Transaction transaction : allParsedTransactions) {
+                    parsedByTxnRef.putIfAbsent(transaction.getTxnRefNumber(), transaction);
+                }
+                Set<String> existingTxnRefNumbers = transactionRepository.findExistingTxnRefNumbers(parsedByTxnRef.keySet());
+                log.info("Found {} existing transactions. {} parsed in total.", existingTxnRefNumbers.size(), parsedByTxnRef.size());
 
-            List<Transaction> newTransactions = allParsedTransactions.stream()
-                    .filter(t -> !existingTxnRefNumbers.contains(t.getTxnRefNumber()))
-                    .collect(Collectors.toList());
+                List<Transaction> newTransactions = parsedByTxnRef.values().stream()
+                        .filter(t -> !existingTxnRefNumbers.contains(t.getTxnRefNumber()))
+                        .collect(Collectors.toList());
+                // --- END OF DUPLICATE CHECK ---
 
-            int newRecordCount = newTransactions.size();
-            log.info("Found {} new transactions to insert.", newRecordCount);
-            if (newRecordCount == 0) {
-                log.warn("No new records to insert. All parsed transactions are duplicates or invalid.");
-                return 0;
+                newRecordCount = newTransactions.size();
+                Set<String> affectedAccountNumbers = newTransactions.stream()
+                        .map(Transaction::getAccountNumber)
+                        .collect(Collectors.toSet());
+                if (newRecordCount > 0) {
+                    progressTracker.stage(fileUploadId, IngestionProgress.Stage.INSERTING);
+                    log.info("Saving {} new transactions for {} accounts...", newRecordCount, affectedAccountNumbers.size());
+                    saveNewTransactions(newTransactions, affectedAccountNumbers);
+                }
+                Map<String, BalanceWindow> windowsByAccount = new HashMap<>();
+                for (Transaction transaction : newTransactions) {
+                    windowsByAccount.merge(transaction.getAccountNumber(), BalanceWindow.of(transaction), BalanceWindow::merge);
+                }
+                balanceWindows = windowsByAccount.values();
             }
-            // --- END OF DUPLICATE CHECK ---
 
-            // Get the set of affected account numbers
-            Set<String> affectedAccountNumbers = newTransactions.stream()
-                    .map(Transaction::getAccountNumber)
-                    .collect(Collectors.toSet());
-
-            // Create or update accounts
-            log.info("Creating/updating {} accounts", affectedAccountNumbers.size());
-            createOrUpdateAccounts(affectedAccountNumbers);
+            if (newRecordCount > 0) {
+                searchResultCache.evictAccounts(balanceWindows.stream()
+                        .map(BalanceWindow::getAccountNumber)
+                        .collect(Collectors.toSet()));
+            }
 
-            // --- UPDATED LOGIC ---
-            // 1. Save new transactions first (with 0 balance)
-            log.info("Saving {} new transactions to database...", newTransactions.size());
-            transactionRepository.saveAll(newTransactions);
-            log.info("New transactions saved.");
+            int duplicateCount = parsedRecordCount - newRecordCount;
+            progressTracker.addInserted(fileUploadId, newRecordCount);
+            progressTracker.addDuplicates(fileUploadId, duplicateCount);
+            log.info("Found {} new transactions, skipped {} duplicates.", newRecordCount, duplicateCount);
+            if (newRecordCount == 0) {
+                log.warn("No new records to insert. All parsed transactions are duplicates or invalid.");
+                return new IngestionResult(0, duplicateCount, rejectedCount);
+            }
 
-            // 2. Recalculate balances for all affected accounts
-            log.info("Recalculating balances for {} affected accounts...", affectedAccountNumbers.size());
-            for (String accountNumber : affectedAccountNumbers) {
-                recalculateBalancesForAccount(accountNumber);
+            // Recalculate balances for all affected accounts
+            if (recalculateBalances) {
+                progressTracker.stage(fileUploadId, IngestionProgress.Stage.BALANCING);
+                log.info("Recalculating balances for {} affected accounts...", balanceWindows.size());
+                recalculateAffectedBalances(balanceWindows);
             }
-            // --- END OF UPDATED LOGIC ---
 
             log.info("Successfully processed and inserted {} new transactions", newRecordCount);
-            return newRecordCount;
+            return new IngestionResult(newRecordCount, duplicateCount, rejectedCount);
 
         } catch (Exception e) {
             log.error("Error processing CSV file: {}", e.getMessage(), e);
@@ -129,69 +195,701 @@ public class FileProcessingService {
         }
     }
 
-    private Transaction parseCSVRecordToTransaction(CSVRecord record, Long fileUploadId) {
-        try {
-            Transaction transaction = new Transaction();
-            String txnRefNumber = getFieldValue(record, "Txn Ref Number");
-            String accountNumber = getFieldValue(record, "Account Number");
-            String dateTimeStr = getFieldValue(record, "Date Time");
-            String description = getFieldValue(record, "Description");
-            String withdrawalsStr = getFieldValue(record, "Withdrawals");
-            String creditStr = getFieldValue(record, "Credit");
+    /**
+     * Streaming variant of {@link #processAndInsertTransactions}.
+     * Rows are parsed, deduplicated and saved in chunks of {@code app.ingestion.chunk-size},
+     * each chunk in its own transaction, so memory use does not grow with the file size.
+     * Balances of the affected accounts are recalculated once all chunks are committed.
+     * Rows are read with {@link StatementCsvParser} unless {@code app.ingestion.fast-parser-enabled} is off.
+     * Not {@code @Transactional} on purpose: an outer transaction would hold every chunk.
+     * Every chunk also saves an {@link IngestionCheckpoint} on the upload; given a non-empty one, the records
+     * it covers are skipped without being converted or written and counting continues from it.
+     * With {@code recalculateBalances} off the balance step is left to the caller, as in the batch upload.
+     *
+     * @return rows inserted (0 when everything was a duplicate or invalid) and duplicates skipped
+     */
+    public IngestionResult processAndInsertTransactionsStreaming(String filename, InputStream inputStream, Long fileUploadId,
+                                                                 IngestionCheckpoint checkpoint, boolean recalculateBalances) {
+        log.info("Starting streaming CSV processing for file: {} (Upload ID: {}, chunk size: {})",
+                filename, fileUploadId, ingestionProperties.getChunkSize());
 
-            if (txnRefNumber == null || txnRefNumber.trim().isEmpty()) {
-                throw new IllegalArgumentException("Transaction reference number is required");
-            }
-            if (accountNumber == null || accountNumber.trim().isEmpty()) {
-                throw new IllegalArgumentException("Account number is required");
+        if (inputStream == null) {
+            throw new RuntimeException("Input stream is null");
+        }
+
+        ChunkedIngestion ingestion = new ChunkedIngestion(fileUploadId, checkpoint);
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        try (ingestion) {
+            readRows(reader, ingestion, fileUploadId);
+            ingestion.finish();
+        } catch (IOException e) {
+            log.error("Error reading CSV file {}: {}", filename, e.getMessage(), e);
+            recalculateAfterFailure(fileUploadId, recalculateBalances);
+            throw new RuntimeException("Failed to process CSV file: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            recalculateAfterFailure(fileUploadId, recalculateBalances);
+            throw e;
+        }
+
+        int newRecordCount = ingestion.newRecordCount;
+        int duplicateCount = ingestion.duplicateCount;
+        int rejectedCount = ingestion.quarantine.getRejectedCount();
+        logRejectedRows(fileUploadId, rejectedCount);
+        log.info("Total records parsed from CSV: {}. New transactions inserted: {}, duplicates skipped: {}",
+                ingestion.parsedRecordCount, newRecordCount, duplicateCount);
+        if (newRecordCount == 0) {
+            log.warn("No new records to insert. All parsed transactions are duplicates or invalid.");
+            return new IngestionResult(0, duplicateCount, rejectedCount);
+        }
+
+        if (recalculateBalances) {
+            // Windows of chunks committed before a restart are only known to the database
+            Collection<BalanceWindow> balanceWindows = isDedupeOnWrite() || ingestion.resumeAfter > 0
+                    ? transactionRepository.findBalanceWindowsByFileUploadId(fileUploadId)
+                    : ingestion.balanceWindows.values();
+            log.info("Recalculating balances for {} affected accounts...", balanceWindows.size());
+            progressTracker.stage(fileUploadId, IngestionProgress.Stage.BALANCING);
+            recalculateAffectedBalances(balanceWindows);
+        }
+
+        log.info("Successfully processed and inserted {} new transactions", newRecordCount);
+        return new IngestionResult(newRecordCount, duplicateCount, rejectedCount);
+    }
+
+    /**
+     * Sorted variant of {@link #processAndInsertTransactionsStreaming} for files whose rows are not in order.
+     * Parsed rows go through an {@link ExternalTransactionSorter}, which spills sorted runs of
+     * {@code app.ingestion.sort-run-size} rows to temp files, and are read back ordered by account and date.
+     * That single ordered pass carries each account's running balance forward while the rows are written,
+     * so rows that come after everything the account already has are inserted with their final balance and
+     * never touched again. Accounts that already hold later transactions fall back to the window recalculation.
+     * Chunks are committed like in streaming mode, but without checkpoints: an interrupted run starts over and
+     * the rows committed before are skipped as duplicates. Since those rows may be waiting for their balances,
+     * a run that met duplicates takes its balance windows from everything the upload has in the database.
+     *
+     * @return rows inserted (0 when everything was a duplicate or invalid) and duplicates skipped
+     */
+    public IngestionResult processAndInsertTransactionsSorted(String filename, InputStream inputStream, Long fileUploadId,
+                                                              boolean recalculateBalances) {
+        log.info("Starting sorted CSV processing for file: {} (Upload ID: {}, run size: {})",
+                filename, fileUploadId, ingestionProperties.getSortRunSize());
+        if (inputStream == null) {
+            throw new RuntimeException("Input stream is null");
+        }
+
+        IngestionProgress progress = progressTracker.get(fileUploadId).orElse(null);
+        Path tempDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        SortedWriter writer = new SortedWriter(fileUploadId);
+        int rejectedCount;
+        try (QuarantineService.QuarantineWriter quarantine = quarantineService.open(fileUploadId);
+             ExternalTransactionSorter sorter = new ExternalTransactionSorter(ingestionProperties.getSortRunSize(), tempDirectory)) {
+            Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            readRows(reader, new RowSink() {
+                @Override
+                public boolean skipCheckpointed() {
+                    return false;
+                }
+
+                @Override
+                public void add(Transaction transaction) throws IOException {
+                    sorter.add(transaction);
+                    if (progress != null) {
+                        progress.countParsed();
+                    }
+                }
+
+                @Override
+                public void reject(long lineNumber, String reason, String rawRecord) {
+                    quarantine.reject(lineNumber, reason, rawRecord);
+                }
+            }, fileUploadId);
+            rejectedCount = quarantine.getRejectedCount();
+            log.info("Sorting {} parsed records ({} runs spilled to disk)", sorter.size(), sorter.getSpilledRuns());
+
+            progressTracker.stage(fileUploadId, IngestionProgress.Stage.INSERTING);
+            ExternalTransactionSorter.TransactionCursor cursor = sorter.sorted();
+            Transaction transaction;
+            while ((transaction = cursor.next()) != null) {
+                writer.add(transaction);
             }
-            if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
-                throw new IllegalArgumentException("Date/Time is required");
+            writer.flush();
+        } catch (IOException e) {
+            log.error("Error reading CSV file {}: {}", filename, e.getMessage(), e);
+            recalculateAfterFailure(fileUploadId, recalculateBalances);
+            throw new RuntimeException("Failed to process CSV file: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            recalculateAfterFailure(fileUploadId, recalculateBalances);
+            throw e;
+        }
+
+        logRejectedRows(fileUploadId, rejectedCount);
+        log.info("New transactions inserted: {}, duplicates skipped: {}, accounts needing recalculation: {}",
+                writer.newRecordCount, writer.duplicateCount, writer.backdatedWindows.size());
+
+        if (recalculateBalances) {
+            // Duplicates may be this upload's own rows from an interrupted run, still waiting for their balances
+            Collection<BalanceWindow> balanceWindows = writer.duplicateCount > 0
+                    ? transactionRepository.findBalanceWindowsByFileUploadId(fileUploadId)
+                    : writer.backdatedWindows.values();
+            if (!balanceWindows.isEmpty()) {
+                progressTracker.stage(fileUploadId, IngestionProgress.Stage.BALANCING);
+                recalculateAffectedBalances(balanceWindows);
             }
+        }
 
-            transaction.setTxnRefNumber(txnRefNumber.trim());
-            transaction.setAccountNumber(accountNumber.trim());
-            transaction.setDescription(description != null ? description.trim() : "");
-            transaction.setFileUploadId(fileUploadId);
+        if (writer.newRecordCount == 0) {
+            log.warn("No new records to insert. All parsed transactions are duplicates or invalid.");
+            return new IngestionResult(0, writer.duplicateCount, rejectedCount);
+        }
+        log.info("Successfully processed and inserted {} new transactions", writer.newRecordCount);
+        return new IngestionResult(writer.newRecordCount, writer.duplicateCount, rejectedCount);
+    }
 
-            try {
-                LocalDateTime dateTime = LocalDateTime.parse(dateTimeStr.trim(), DATE_TIME_FORMATTER);
-                transaction.setDateTime(dateTime);
-            } catch (Exception e) {
-                log.warn("Invalid date format '{}' for record {}: {}", dateTimeStr, record.getRecordNumber(), e.getMessage());
-                throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
+    /**
+     * Where the streaming readers hand each CSV record: a parsed row, or a rejected one with its reason.
+     */
+    private interface RowSink {
+
+        // True for records a previous run already committed; they are neither converted nor handed over
+        boolean skipCheckpointed();
+
+        void add(Transaction transaction) throws IOException;
+
+        void reject(long lineNumber, String reason, String rawRecord);
+    }
+
+    // StatementCsvParser unless app.ingestion.fast-parser-enabled is off
+    private void readRows(Reader reader, RowSink sink, Long fileUploadId) throws IOException {
+        if (ingestionProperties.isFastParserEnabled()) {
+            readWithStatementParser(reader, sink, fileUploadId);
+        } else {
+            readWithCommonsCsv(reader, sink, fileUploadId);
+        }
+    }
+
+    private void readWithStatementParser(Reader reader, RowSink sink, Long fileUploadId) throws IOException {
+        try (StatementCsvParser parser = new StatementCsvParser(reader)) {
+            while (parser.next()) {
+                if (sink.skipCheckpointed()) {
+                    continue;
+                }
+                Transaction transaction = parser.toTransaction(fileUploadId);
+                if (transaction == null) {
+                    sink.reject(parser.getLineNumber(), parser.getRejectReason(), parser.getRawRecord());
+                    continue;
+                }
+                sink.add(transaction);
             }
+        }
+    }
 
-            BigDecimal withdrawals = BigDecimal.ZERO;
-            if (withdrawalsStr != null && !withdrawalsStr.trim().isEmpty()) {
+    private void readWithCommonsCsv(Reader reader, RowSink sink, Long fileUploadId) throws IOException {
+        try (CSVParser csvParser = new CSVParser(reader, CSV_FORMAT)) {
+            log.debug("CSV Header Map: {}", csvParser.getHeaderMap());
+            for (CSVRecord record : csvParser) {
+                if (sink.skipCheckpointed()) {
+                    continue;
+                }
                 try {
-                    withdrawals = new BigDecimal(withdrawalsStr.trim());
-                    if (withdrawals.compareTo(BigDecimal.ZERO) < 0) {
-                        withdrawals = BigDecimal.ZERO;
-                    }
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid withdrawals amount '{}' for record {}", withdrawalsStr, record.getRecordNumber());
+                    sink.add(parseCSVRecordToTransaction(record, fileUploadId));
+                } catch (IllegalArgumentException e) {
+                    sink.reject(csvParser.getCurrentLineNumber(), e.getMessage(), rawRecordOf(record));
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects parsed rows of one streaming upload and hands them to {@link #persistChunk}
+     * every {@code app.ingestion.chunk-size} rows, together with the checkpoint after them.
+     * Rejected rows go to {@link #quarantine}.
+     * With {@code app.ingestion.pipeline-enabled} full chunks are queued to a {@link StagedPipeline} instead:
+     * the reading thread goes on parsing while a dedupe thread looks up the previous chunk and a write thread
+     * commits the one before, each queue holding at most {@code app.ingestion.pipeline-queue-capacity} chunks.
+     */
+    private class ChunkedIngestion implements RowSink, AutoCloseable {
+
+        private final Long fileUploadId;
+        private final QuarantineService.QuarantineWriter quarantine;
+        // Records already committed by an interrupted run, skipped on the way to new ones
+        private final long resumeAfter;
+        // Records consumed so far, skipped ones included
+        private long recordNumber;
+        // Live counters of an async upload, null when the upload is not tracked
+        private final IngestionProgress progress;
+        private final int chunkSize = Math.max(1, ingestionProperties.getChunkSize());
+        private final List<Transaction> chunk = new ArrayList<>(chunkSize);
+        // Concurrent since lanes merge into it in parallel mode
+        private final Map<String, BalanceWindow> balanceWindows = new ConcurrentHashMap<>();
+        // Null when chunks are written on the reading thread
+        private final StagedPipeline<PendingChunk> pipeline;
+        // References of chunks past the dedupe stage but not yet committed, which the database lookup cannot see
+        private final Set<String> uncommittedTxnRefs = ConcurrentHashMap.newKeySet();
+        private int parsedRecordCount;
+        // Updated by the write stage in pipeline mode, read once the pipeline has finished
+        private int newRecordCount;
+        private int duplicateCount;
+
+        private ChunkedIngestion(Long fileUploadId, IngestionCheckpoint checkpoint) {
+            this.fileUploadId = fileUploadId;
+            this.progress = progressTracker.get(fileUploadId).orElse(null);
+            this.resumeAfter = checkpoint.getRecordNumber();
+            this.newRecordCount = checkpoint.getInsertedCount();
+            this.duplicateCount = checkpoint.getDuplicateCount();
+            if (resumeAfter > 0) {
+                log.info("Resuming upload {} after record {} ({} inserted, {} duplicates, {} rejected so far)",
+                        fileUploadId, resumeAfter, newRecordCount, duplicateCount, checkpoint.getRejectedCount());
+                this.quarantine = quarantineService.resume(fileUploadId, checkpoint.getRejectedCount());
+                progressTracker.addInserted(fileUploadId, newRecordCount);
+                progressTracker.addDuplicates(fileUploadId, duplicateCount);
+            } else {
+                this.quarantine = quarantineService.open(fileUploadId);
+            }
+            if (ingestionProperties.isPipelineEnabled()) {
+                this.pipeline = new StagedPipeline<PendingChunk>("ingest-" + fileUploadId, "parse",
+                        ingestionProperties.getPipelineQueueCapacity(), pending -> pending.rows.size())
+                        .stage("dedupe", this::dedupe)
+                        .stage("write", this::write)
+                        .start();
+                if (progress != null) {
+                    progress.setPipelineStats(pipeline::getStats);
                 }
+            } else {
+                this.pipeline = null;
+            }
+        }
+
+        @Override
+        public boolean skipCheckpointed() {
+            if (recordNumber < resumeAfter) {
+                recordNumber++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void reject(long lineNumber, String reason, String rawRecord) {
+            recordNumber++;
+            quarantine.reject(lineNumber, reason, rawRecord);
+        }
+
+        @Override
+        public void add(Transaction transaction) throws IOException {
+            chunk.add(transaction);
+            recordNumber++;
+            parsedRecordCount++;
+            if (progress != null) {
+                progress.countParsed();
+            }
+            if (chunk.size() >= chunkSize) {
+                flush();
             }
-            transaction.setWithdrawals(withdrawals);
+        }
 
-            BigDecimal credit = BigDecimal.ZERO;
-            if (creditStr != null && !creditStr.trim().isEmpty()) {
+        private void flush() throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            // Rejected rows the checkpoint counts must be in the report before it commits
+            quarantine.flush();
+            if (pipeline != null) {
                 try {
-                    credit = new BigDecimal(creditStr.trim());
-                    if (credit.compareTo(BigDecimal.ZERO) < 0) {
-                        credit = BigDecimal.ZERO;
-                    }
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid credit amount '{}' for record {}", creditStr, record.getRecordNumber());
+                    pipeline.submit(new PendingChunk(new ArrayList<>(chunk), chunk.size(), recordNumber,
+                            quarantine.getRejectedCount()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while queueing a chunk of upload " + fileUploadId);
+                }
+                chunk.clear();
+                return;
+            }
+            int inserted = persistChunk(chunk, chunk.size(), rows -> insertChunk(rows, balanceWindows, fileUploadId),
+                    fileUploadId, insertedInChunk -> fileUploadRepository.saveCheckpoint(fileUploadId, recordNumber,
+                            newRecordCount + insertedInChunk,
+                            duplicateCount + chunk.size() - insertedInChunk,
+                            quarantine.getRejectedCount()));
+            newRecordCount += inserted;
+            duplicateCount += chunk.size() - inserted;
+            chunk.clear();
+        }
+
+        /**
+         * Flushes the last chunk and waits until the pipeline has written everything queued.
+         */
+        private void finish() throws IOException {
+            flush();
+            if (pipeline == null) {
+                return;
+            }
+            try {
+                pipeline.finish();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing upload " + fileUploadId);
+            }
+            log.info("Pipeline of upload {}: {}", fileUploadId, pipeline.getStats());
+        }
+
+        // Dedupe stage. Outside the write transaction, so rows of chunks still queued for writing are checked first
+        private PendingChunk dedupe(PendingChunk pending) {
+            Map<String, Transaction> chunkByTxnRef = new LinkedHashMap<>();
+            for (Transaction transaction : pending.rows) {
+                chunkByTxnRef.putIfAbsent(transaction.getTxnRefNumber(), transaction);
+            }
+            if (!isDedupeOnWrite()) {
+                // A chunk leaves the set only once committed, so after this check the lookup sees the rest
+                chunkByTxnRef.keySet().removeIf(uncommittedTxnRefs::contains);
+                Set<String> existingTxnRefNumbers = chunkByTxnRef.isEmpty()
+                        ? Set.of()
+                        : transactionRepository.findExistingTxnRefNumbers(chunkByTxnRef.keySet());
+                chunkByTxnRef.keySet().removeAll(existingTxnRefNumbers);
+                uncommittedTxnRefs.addAll(chunkByTxnRef.keySet());
+            }
+            pending.rows = new ArrayList<>(chunkByTxnRef.values());
+            return pending;
+        }
+
+        // Write stage; in dedupe-on-write mode the unique key still drops rows the database already has
+        private PendingChunk write(PendingChunk pending) {
+            int inserted = persistChunk(pending.rows, pending.parsedCount, rows -> isDedupeOnWrite()
+                            ? insertChunk(rows, balanceWindows, fileUploadId)
+                            : insertNewRows(rows, balanceWindows, fileUploadId),
+                    fileUploadId, insertedInChunk -> fileUploadRepository.saveCheckpoint(fileUploadId,
+                            pending.recordNumber,
+                            newRecordCount + insertedInChunk,
+                            duplicateCount + pending.parsedCount - insertedInChunk,
+                            pending.rejectedCount));
+            newRecordCount += inserted;
+            duplicateCount += pending.parsedCount - inserted;
+            pending.rows.forEach(transaction -> uncommittedTxnRefs.remove(transaction.getTxnRefNumber()));
+            return pending;
+        }
+
+        @Override
+        public void close() {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+            quarantine.close();
+        }
+    }
+
+    /**
+     * A chunk on its way through the pipeline, with the checkpoint to save once it is committed.
+     * {@code rows} shrinks to the new rows in the dedupe stage; {@code parsedCount} keeps the original size.
+     */
+    private static class PendingChunk {
+        private List<Transaction> rows;
+        private final int parsedCount;
+        private final long recordNumber;
+        private final int rejectedCount;
+
+        private PendingChunk(List<Transaction> rows, int parsedCount, long recordNumber, int rejectedCount) {
+            this.rows = rows;
+            this.parsedCount = parsedCount;
+            this.recordNumber = recordNumber;
+            this.rejectedCount = rejectedCount;
+        }
+    }
+
+    /**
+     * Writes rows arriving in account and date order, {@code app.ingestion.chunk-size} per transaction.
+     * Each chunk runs under the {@link AccountLockManager} stripes of its accounts, so no recalculation or other
+     * upload of those accounts commits between reading an account's last row and writing the balances carried
+     * on from it. An account spans chunks but never comes back; every chunk reads its first account's last row
+     * again, since the stripes are released between chunks.
+     */
+    private class SortedWriter {
+
+        private final Long fileUploadId;
+        private final int chunkSize = Math.max(1, ingestionProperties.getChunkSize());
+        private final List<Transaction> chunk = new ArrayList<>(chunkSize);
+        // Accounts whose new rows go before existing ones; their balances are recalculated afterwards
+        private final Map<String, BalanceWindow> backdatedWindows = new HashMap<>();
+        private String accountNumber;
+        private boolean continued;
+        private BigDecimal runningBalance;
+        private int newRecordCount;
+        private int duplicateCount;
+
+        private SortedWriter(Long fileUploadId) {
+            this.fileUploadId = fileUploadId;
+        }
+
+        private void add(Transaction transaction) {
+            chunk.add(transaction);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Integer inserted = accountLockManager.callLocked(accountNumbersOf(chunk),
+                    () -> transactionTemplate.execute(status -> writeChunk()));
+            int insertedCount = inserted != null ? inserted : 0;
+            if (insertedCount > 0) {
+                searchResultCache.evictAccounts(accountNumbersOf(chunk));
+            }
+            newRecordCount += insertedCount;
+            duplicateCount += chunk.size() - insertedCount;
+            progressTracker.addInserted(fileUploadId, insertedCount);
+            progressTracker.addDuplicates(fileUploadId, chunk.size() - insertedCount);
+            log.debug("Committed sorted chunk: {} rows, {} new", chunk.size(), insertedCount);
+            chunk.clear();
+        }
+
+        private int writeChunk() {
+            accountNumber = null;
+            // First occurrence in sorted order wins; earlier chunks are already in the database
+            Map<String, Transaction> chunkByTxnRef = new LinkedHashMap<>();
+            for (Transaction transaction : chunk) {
+                chunkByTxnRef.putIfAbsent(transaction.getTxnRefNumber(), transaction);
+            }
+            Set<String> existingTxnRefNumbers = transactionRepository.findExistingTxnRefNumbers(chunkByTxnRef.keySet());
+            List<Transaction> newTransactions = chunkByTxnRef.values().stream()
+                    .filter(t -> !existingTxnRefNumbers.contains(t.getTxnRefNumber()))
+                    .collect(Collectors.toList());
+            if (newTransactions.isEmpty()) {
+                return 0;
+            }
+
+            transactionBulkRepository.insertMissingAccounts(newTransactions.stream()
+                    .map(Transaction::getAccountNumber)
+                    .collect(Collectors.toSet()));
+            Map<String, BigDecimal> closingBalances = new LinkedHashMap<>();
+            for (Transaction transaction : newTransactions) {
+                if (!transaction.getAccountNumber().equals(accountNumber)) {
+                    startAccount(transaction);
+                }
+                BigDecimal credit = transaction.getCredit() != null ? transaction.getCredit() : BigDecimal.ZERO;
+                BigDecimal withdrawals = transaction.getWithdrawals() != null ? transaction.getWithdrawals() : BigDecimal.ZERO;
+                runningBalance = runningBalance.add(credit).subtract(withdrawals);
+                transaction.setRunningBalance(runningBalance);
+                if (continued) {
+                    closingBalances.put(accountNumber, runningBalance);
+                } else {
+                    backdatedWindows.merge(accountNumber, BalanceWindow.of(transaction), BalanceWindow::merge);
+                }
+            }
+            transactionBulkRepository.insertTransactions(newTransactions);
+            closingBalances.forEach(accountRepository::updateCurrentBalance);
+            return newTransactions.size();
+        }
+
+        // The first new row of an account decides whether its balance can simply be carried forward
+        private void startAccount(Transaction first) {
+            accountNumber = first.getAccountNumber();
+            Transaction last = transactionRepository.findFirstByAccountNumberOrderByDateTimeDescIdDesc(accountNumber);
+            continued = last == null || !last.getDateTime().isAfter(first.getDateTime());
+            runningBalance = last != null && last.getRunningBalance() != null ? last.getRunningBalance() : BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Deduplicates one chunk (within itself and against the database), creates missing accounts
+     * and saves the new transactions, all in a single short transaction.
+     * Later chunks see the rows committed here, so duplicates spread across chunks are caught too.
+     * In dedupe-on-write mode the whole chunk is inserted with ON DUPLICATE KEY UPDATE and the unique key
+     * does the filtering; balance windows are then read back per upload once the file is done, not collected here.
+     * {@code write} is {@link #insertChunk}, or {@link #insertNewRows} for rows the pipeline has deduplicated already;
+     * {@code parsedCount} is the chunk size before that, the rest counting as duplicates.
+     * {@code checkpoint} gets the number of rows inserted and runs last in the same transaction.
+     * With {@code app.ingestion.parallel-enabled} the chunk is written in lanes instead, see {@link #insertChunkInLanes},
+     * and the checkpoint follows in its own transaction once every lane has committed. Resuming after a crash
+     * between those commits reads the rows of the committed lanes again; they are then counted as duplicates.
+     */
+    private int persistChunk(List<Transaction> chunk, int parsedCount, ToIntFunction<List<Transaction>> write,
+                             Long fileUploadId, IntConsumer checkpoint) {
+        int insertedCount;
+        if (chunk.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> checkpoint.accept(0));
+            insertedCount = 0;
+        } else if (isParallel()) {
+            int insertedInLanes = insertChunkInLanes(chunk, write);
+            transactionTemplate.executeWithoutResult(status -> checkpoint.accept(insertedInLanes));
+            insertedCount = insertedInLanes;
+        } else {
+            Integer inserted = transactionTemplate.execute(status -> {
+                int insertedInChunk = write.applyAsInt(chunk);
+                checkpoint.accept(insertedInChunk);
+                return insertedInChunk;
+            });
+            insertedCount = inserted != null ? inserted : 0;
+        }
+
+        if (insertedCount > 0) {
+            searchResultCache.evictAccounts(accountNumbersOf(chunk));
+        }
+        progressTracker.addInserted(fileUploadId, insertedCount);
+        progressTracker.addDuplicates(fileUploadId, parsedCount - insertedCount);
+        progressTracker.stage(fileUploadId, IngestionProgress.Stage.PARSING);
+        log.debug("Committed chunk: {} parsed, {} new", parsedCount, insertedCount);
+        return insertedCount;
+    }
+
+    /**
+     * Drops repeated transaction references from the chunk, then hash-partitions the rest by account number
+     * into {@code app.ingestion.parallel-lanes} lanes that are deduplicated against the database and inserted
+     * concurrently on the lane pool, each in its own transaction. Accounts never span lanes and a lane keeps
+     * file order, so rows of one account are written in the order they were read.
+     */
+    private int insertChunkInLanes(List<Transaction> chunk, ToIntFunction<List<Transaction>> write) {
+        // Same reference under two accounts would otherwise land in two lanes and pass both lookups
+        Map<String, Transaction> chunkByTxnRef = new LinkedHashMap<>();
+        for (Transaction transaction : chunk) {
+            chunkByTxnRef.putIfAbsent(transaction.getTxnRefNumber(), transaction);
+        }
+
+        int laneCount = Math.max(1, ingestionProperties.getParallelLanes());
+        List<List<Transaction>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (Transaction transaction : chunkByTxnRef.values()) {
+            lanes.get(Math.floorMod(transaction.getAccountNumber().hashCode(), laneCount)).add(transaction);
+        }
+
+        List<ForkJoinTask<Integer>> tasks = lanes.stream()
+                .filter(lane -> !lane.isEmpty())
+                .map(lane -> ingestionLanePool.submit(() -> insertLane(lane, write)))
+                .collect(Collectors.toList());
+        int inserted = 0;
+        for (ForkJoinTask<Integer> task : tasks) {
+            inserted += task.join();
+        }
+        return inserted;
+    }
+
+    // Lanes touch disjoint accounts but share index pages, so a lost deadlock is retried rather than failing the upload
+    private int insertLane(List<Transaction> lane, ToIntFunction<List<Transaction>> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer inserted = transactionTemplate.execute(status -> write.applyAsInt(lane));
+                return inserted != null ? inserted : 0;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= LANE_ATTEMPTS) {
+                    throw e;
                 }
+                log.debug("Retrying lane of {} rows after lock failure: {}", lane.size(), e.getMessage());
             }
-            transaction.setCredit(credit);
-            transaction.setRunningBalance(BigDecimal.ZERO); // Set default
-            return transaction;
+        }
+    }
+
+    private int insertChunk(List<Transaction> chunk, Map<String, BalanceWindow> balanceWindows, Long fileUploadId) {
+        if (isDedupeOnWrite()) {
+            progressTracker.stage(fileUploadId, IngestionProgress.Stage.INSERTING);
+            transactionBulkRepository.insertMissingAccounts(chunk.stream()
+                    .map(Transaction::getAccountNumber)
+                    .collect(Collectors.toSet()));
+            return transactionBulkRepository.insertTransactionsIgnoringDuplicates(chunk);
+        }
+
+        progressTracker.stage(fileUploadId, IngestionProgress.Stage.DEDUPING);
+        Map<String, Transaction> chunkByTxnRef = new LinkedHashMap<>();
+        for (Transaction transaction : chunk) {
+            chunkByTxnRef.putIfAbsent(transaction.getTxnRefNumber(), transaction);
+        }
+
+        Set<String> existingTxnRefNumbers = transactionRepository.findExistingTxnRefNumbers(chunkByTxnRef.keySet());
+        List<Transaction> newTransactions = chunkByTxnRef.values().stream()
+                .filter(t -> !existingTxnRefNumbers.contains(t.getTxnRefNumber()))
+                .collect(Collectors.toList());
+
+        return insertNewRows(newTransactions, balanceWindows, fileUploadId);
+    }
+
+    // Saves rows known to be new and widens the balance windows of their accounts
+    private int insertNewRows(List<Transaction> newTransactions, Map<String, BalanceWindow> balanceWindows, Long fileUploadId) {
+        if (newTransactions.isEmpty()) {
+            return 0;
+        }
+
+        progressTracker.stage(fileUploadId, IngestionProgress.Stage.INSERTING);
+        Set<String> chunkAccountNumbers = newTransactions.stream()
+                .map(Transaction::getAccountNumber)
+                .collect(Collectors.toSet());
+        saveNewTransactions(newTransactions, chunkAccountNumbers);
+        for (Transaction transaction : newTransactions) {
+            balanceWindows.merge(transaction.getAccountNumber(), BalanceWindow.of(transaction), BalanceWindow::merge);
+        }
+        return newTransactions.size();
+    }
+
+    /**
+     * @throws IllegalArgumentException with the reject reason when the row cannot be imported
+     */
+    private Transaction parseCSVRecordToTransaction(CSVRecord record, Long fileUploadId) {
+        Transaction transaction = new Transaction();
+        String txnRefNumber = getFieldValue(record, "Txn Ref Number");
+        String accountNumber = getFieldValue(record, "Account Number");
+        String dateTimeStr = getFieldValue(record, "Date Time");
+        String description = getFieldValue(record, "Description");
+        String withdrawalsStr = getFieldValue(record, "Withdrawals");
+        String creditStr = getFieldValue(record, "Credit");
+
+        if (txnRefNumber == null || txnRefNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Transaction reference number is required");
+        }
+        if (accountNumber == null || accountNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Account number is required");
+        }
+        if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
+            throw new IllegalArgumentException("Date/Time is required");
+        }
+
+        transaction.setTxnRefNumber(txnRefNumber.trim());
+        transaction.setAccountNumber(accountNumber.trim());
+        transaction.setDescription(description != null ? description.trim() : "");
+        transaction.setFileUploadId(fileUploadId);
+
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(dateTimeStr.trim(), DATE_TIME_FORMATTER);
+            transaction.setDateTime(dateTime);
         } catch (Exception e) {
-            log.error("Error parsing CSV record at line {}: {}", record.getRecordNumber(), e.getMessage());
-            return null;
+            throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
+        }
+
+        BigDecimal withdrawals = BigDecimal.ZERO;
+        if (withdrawalsStr != null && !withdrawalsStr.trim().isEmpty()) {
+            try {
+                withdrawals = new BigDecimal(withdrawalsStr.trim());
+                if (withdrawals.compareTo(BigDecimal.ZERO) < 0) {
+                    withdrawals = BigDecimal.ZERO;
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Invalid withdrawals amount '{}' for record {}", withdrawalsStr, record.getRecordNumber());
+            }
+        }
+        transaction.setWithdrawals(withdrawals);
+
+        BigDecimal credit = BigDecimal.ZERO;
+        if (creditStr != null && !creditStr.trim().isEmpty()) {
+            try {
+                credit = new BigDecimal(creditStr.trim());
+                if (credit.compareTo(BigDecimal.ZERO) < 0) {
+                    credit = BigDecimal.ZERO;
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Invalid credit amount '{}' for record {}", creditStr, record.getRecordNumber());
+            }
+        }
+        transaction.setCredit(credit);
+        transaction.setRunningBalance(BigDecimal.ZERO); // Set default
+        return transaction;
+    }
+
+    // commons-csv keeps only the parsed values, so the quarantined line is rebuilt from them
+    private static String rawRecordOf(CSVRecord record) {
+        return CSVFormat.DEFAULT.format(record.toList().toArray());
+    }
+
+    private void logRejectedRows(Long fileUploadId, int rejectedCount) {
+        if (rejectedCount > 0) {
+            log.warn("Rejected {} rows of upload {}; details are in its quarantine report", rejectedCount, fileUploadId);
         }
     }
 
@@ -216,6 +914,102 @@ public class FileProcessingService {
         }
     }
 
+    /**
+     * Balance step for uploads ingested with {@code recalculateBalances} off: brings the accounts of all
+     * the given uploads up to date in one pass, each account once however many of the uploads touched it.
+     */
+    public void recalculateBalances(Collection<Long> fileUploadIds) {
+        if (fileUploadIds.isEmpty()) {
+            return;
+        }
+        List<BalanceWindow> balanceWindows = transactionRepository.findBalanceWindowsByFileUploadIds(fileUploadIds);
+        log.info("Recalculating balances for {} accounts affected by {} uploads...", balanceWindows.size(), fileUploadIds.size());
+        recalculateAffectedBalances(balanceWindows);
+    }
+
+    /**
+     * Chunks committed before a failure stay in the database, and the failed upload is neither resumed nor
+     * covered by a later upload of the same file, whose rows are all duplicates then. So their accounts are
+     * balanced here before the failure is passed on. With {@code recalculateBalances} off the caller does it.
+     */
+    private void recalculateAfterFailure(Long fileUploadId, boolean recalculateBalances) {
+        if (!recalculateBalances) {
+            return;
+        }
+        try {
+            List<BalanceWindow> balanceWindows = transactionRepository.findBalanceWindowsByFileUploadId(fileUploadId);
+            if (!balanceWindows.isEmpty()) {
+                log.info("Upload {} failed after committing rows; recalculating balances for {} accounts...",
+                        fileUploadId, balanceWindows.size());
+                recalculateAffectedBalances(balanceWindows);
+            }
+        } catch (RuntimeException e) {
+            log.error("Balance recalculation after failed upload {} failed, run a balance rebuild: {}",
+                    fileUploadId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Brings running balances up to date for every account that received new transactions.
+     * In incremental mode only the rows from the start of the new ones on are recomputed;
+     * otherwise the whole account history is recalculated. One transaction per account,
+     * joining the caller's transaction when there is one. Each account is recalculated under its
+     * {@link AccountLockManager} stripe, taken in account number order.
+     */
+    private void recalculateAffectedBalances(Collection<BalanceWindow> balanceWindows) {
+        // Accounts are independent, so in parallel mode they are spread over the lane pool;
+        // not inside a caller's transaction though, whose uncommitted rows other threads cannot see
+        if (isParallel() && balanceWindows.size() > 1 && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            List<ForkJoinTask<?>> tasks = balanceWindows.stream()
+                    .map(window -> ingestionLanePool.submit(() -> recalculateAccount(window)))
+                    .collect(Collectors.toList());
+            tasks.forEach(ForkJoinTask::join);
+            return;
+        }
+        balanceWindows.stream()
+                .sorted(Comparator.comparing(BalanceWindow::getAccountNumber))
+                .forEach(this::recalculateAccount);
+    }
+
+    private void recalculateAccount(BalanceWindow window) {
+        accountLockManager.recalculate(window, merged -> {
+            if (ingestionProperties.isIncrementalBalanceEnabled()) {
+                balanceCalculationService.applyIncrementalBalance(merged);
+            } else {
+                transactionTemplate.executeWithoutResult(status -> recalculateBalancesForAccount(merged.getAccountNumber()));
+            }
+            searchResultCache.evictAccount(merged.getAccountNumber());
+        });
+    }
+
+    private static Set<String> accountNumbersOf(List<Transaction> transactions) {
+        return transactions.stream()
+                .map(Transaction::getAccountNumber)
+                .collect(Collectors.toSet());
+    }
+
+    private boolean isParallel() {
+        return ingestionProperties.isParallelEnabled() && ingestionProperties.getParallelLanes() > 1;
+    }
+
+    private boolean isDedupeOnWrite() {
+        return ingestionProperties.isDedupeOnWriteEnabled() && ingestionProperties.isBulkInsertEnabled();
+    }
+
+    /**
+     * Creates missing accounts and inserts the new transactions, through the JDBC bulk path
+     * when {@code app.ingestion.bulk-insert-enabled} is set, otherwise through JPA.
+     */
+    private void saveNewTransactions(List<Transaction> newTransactions, Set<String> accountNumbers) {
+        if (ingestionProperties.isBulkInsertEnabled()) {
+            transactionBulkRepository.insertMissingAccounts(accountNumbers);
+            transactionBulkRepository.insertTransactions(newTransactions);
+        } else {
+            createOrUpdateAccounts(accountNumbers);
+            transactionRepository.saveAll(newTransactions);
+        }
+    }
+
     private void createOrUpdateAccounts(Set<String> accountNumbers) {
         log.info("Creating/updating {} accounts", accountNumbers.size());
         for (String accountNumber : accountNumbers) {
@@ -244,6 +1038,11 @@ public class FileProcessingService {
     @Transactional
     public void recalculateAllRunningBalances() {
         log.info("Starting recalculation of all running balances");
+        searchResultCache.evictAll();
+        if (balanceProperties.getStrategy() == BalanceProperties.Strategy.SQL) {
+            balanceCalculationService.recalculateAllBalancesInDatabase();
+            return;
+        }
         List<String> accountNumbers = transactionRepository.findAllUniqueAccountNumbers();
         for (String accountNumber : accountNumbers) {
             recalculateBalancesForAccount(accountNumber);
@@ -255,6 +1054,11 @@ public class FileProcessingService {
     @Transactional
     public void recalculateBalancesForAccount(String accountNumber) {
         log.info("Recalculating balances for account: {}", accountNumber);
+        searchResultCache.evictAccount(accountNumber);
+        if (balanceProperties.getStrategy() == BalanceProperties.Strategy.SQL) {
+            balanceCalculationService.recalculateAccountInDatabase(accountNumber);
+            return;
+        }
 
         // 1. Lock the account to prevent race conditions
         Account account = accountRepository.findByAccountNumberForUpdate(accountNumber)
@@ -3,10 +3,19 @@ package com.estatement.service;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 
 @Service
@@ -23,16 +32,150 @@ public class FileStorageService {
         }
     }
 
-    public String storeFile(MultipartFile file) {
-        String originalFileName = file.getOriginalFilename();
-        String extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-        String uniqueFileName = UUID.randomUUID().toString() + extension;
+    /**
+     * Stored file name and SHA-256 of its content (lowercase hex).
+     */
+    public record StoredFile(String filename, String contentHash) {
+    }
+
+    /**
+     * Stores the upload under the hex SHA-256 of its content, computed while it is copied.
+     * Identical content is kept once: when the file already exists the new copy is dropped.
+     */
+    public StoredFile storeFile(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return storeStream(in, file.getOriginalFilename());
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + file.getOriginalFilename(), ex);
+        }
+    }
+
+    /**
+     * Same as {@link #storeFile}, reading {@code in} to its end without closing it
+     * (used for the entries of a zip archive).
+     */
+    public StoredFile storeStream(InputStream in, String originalFileName) {
+        String uniqueFileName = newStoredFileName(originalFileName);
         try {
             Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            return uniqueFileName;
+            MessageDigest digest = newContentDigest();
+            Files.copy(new DigestInputStream(in, digest), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            return new StoredFile(moveToContentAddress(uniqueFileName, contentHash), contentHash);
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file " + originalFileName, ex);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Renames a stored file to {@code <contentHash><extension>}, or deletes it when that file already exists.
+     * Repeating it after the file has moved is a no-op, so an interrupted completion can simply run it again.
+     *
+     * @return the content-addressed file name
+     */
+    public String moveToContentAddress(String storedFileName, String contentHash) {
+        String contentAddressedName = contentAddressedName(storedFileName, contentHash);
+        Path source = this.fileStorageLocation.resolve(storedFileName);
+        Path target = this.fileStorageLocation.resolve(contentAddressedName);
+        try {
+            if (Files.exists(target)) {
+                Files.deleteIfExists(source);
+            } else {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (FileAlreadyExistsException ex) {
+            // Same content stored concurrently
+            deleteQuietly(source);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + contentAddressedName, ex);
+        }
+        return contentAddressedName;
+    }
+
+    // Name a stored file gets once it is moved to its content address
+    public String contentAddressedName(String storedFileName, String contentHash) {
+        int dot = storedFileName.lastIndexOf(".");
+        return contentHash + (dot >= 0 ? storedFileName.substring(dot) : "");
+    }
+
+    /**
+     * SHA-256 of a stored file, read through a channel in 64KB blocks.
+     */
+    public String contentHashOf(String storedFileName) {
+        MessageDigest digest = newContentDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(this.fileStorageLocation.resolve(storedFileName), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read file " + storedFileName, ex);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Leftover copy only wastes space
+        }
+    }
+
+    /**
+     * Unique name under the upload directory for a file that is about to be written, keeping the extension.
+     */
+    public String newStoredFileName(String originalFileName) {
+        int dot = originalFileName != null ? originalFileName.lastIndexOf(".") : -1;
+        String extension = dot >= 0 ? originalFileName.substring(dot) : "";
+        return UUID.randomUUID().toString() + extension;
+    }
+
+    /**
+     * Opens a new file in the upload directory for writing; fails if the name is already taken.
+     */
+    public FileChannel openForWrite(String storedFileName) {
+        try {
+            return FileChannel.open(this.fileStorageLocation.resolve(storedFileName),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create file " + storedFileName, ex);
+        }
+    }
+
+    /**
+     * Opens an existing file in the upload directory for positional writes (chunked uploads).
+     */
+    public FileChannel openExistingForWrite(String storedFileName) {
+        try {
+            return FileChannel.open(this.fileStorageLocation.resolve(storedFileName), StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not open file " + storedFileName, ex);
+        }
+    }
+
+    /**
+     * Deletes a file from the upload directory; a file that is already gone is not an error.
+     */
+    public void delete(String storedFileName) {
+        deleteQuietly(this.fileStorageLocation.resolve(storedFileName));
+    }
+
+    public long sizeOf(String storedFileName) {
+        try {
+            return Files.size(this.fileStorageLocation.resolve(storedFileName));
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read size of file " + storedFileName, ex);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.estatement.service;
+
+import com.estatement.config.IngestionProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes ingestion progress to Server-Sent Events subscribers.
+ * The ingestion threads never call into this class per row: a single scheduler thread samples the
+ * {@link IngestionProgress} of every watched upload each {@code app.ingestion.progress-event-interval-ms}
+ * and sends a {@code progress} event when something changed. Only the end of a job is pushed immediately.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionEventPublisher {
+
+    public static final String PROGRESS_EVENT = "progress";
+
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private final IngestionProperties ingestionProperties;
+
+    private final Map<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(50, ingestionProperties.getProgressEventIntervalMs());
+        scheduler.scheduleAtFixedRate(this::publishChanges, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        subscriptions.values().forEach(subscription -> subscription.emitters.forEach(SseEmitter::complete));
+        subscriptions.clear();
+    }
+
+    /**
+     * Registers a listener for an upload that is in flight and sends it the current state right away.
+     */
+    public SseEmitter subscribe(IngestionProgress progress) {
+        Long fileUploadId = progress.getFileUploadId();
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscription subscription = subscriptions.computeIfAbsent(fileUploadId, id -> new Subscription(progress));
+        subscription.emitters.add(emitter);
+        emitter.onCompletion(() -> unsubscribe(fileUploadId, emitter));
+        emitter.onTimeout(() -> unsubscribe(fileUploadId, emitter));
+        emitter.onError(error -> unsubscribe(fileUploadId, emitter));
+
+        send(fileUploadId, emitter, progress.toMap());
+        // The job may have ended between the caller's lookup and the registration above
+        IngestionProgress.Stage stage = progress.getStage();
+        if (stage == IngestionProgress.Stage.COMPLETED || stage == IngestionProgress.Stage.FAILED) {
+            finished(progress);
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends the final state of a finished upload to its listeners and closes their streams.
+     */
+    public void finished(IngestionProgress progress) {
+        Subscription subscription = subscriptions.remove(progress.getFileUploadId());
+        if (subscription == null) {
+            return;
+        }
+        Map<String, Object> state = progress.toMap();
+        for (SseEmitter emitter : subscription.emitters) {
+            send(progress.getFileUploadId(), emitter, state);
+            emitter.complete();
+        }
+    }
+
+    private void publishChanges() {
+        for (Map.Entry<Long, Subscription> entry : subscriptions.entrySet()) {
+            Subscription subscription = entry.getValue();
+            Snapshot current = Snapshot.of(subscription.progress);
+            if (current.equals(subscription.lastSent)) {
+                continue;
+            }
+            subscription.lastSent = current;
+            Map<String, Object> state = subscription.progress.toMap();
+            for (SseEmitter emitter : subscription.emitters) {
+                send(entry.getKey(), emitter, state);
+            }
+        }
+    }
+
+    private void send(Long fileUploadId, SseEmitter emitter, Map<String, Object> state) {
+        try {
+            emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(state));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks drop it
+            log.debug("Could not send progress of upload {}: {}", fileUploadId, e.getMessage());
+            unsubscribe(fileUploadId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long fileUploadId, SseEmitter emitter) {
+        subscriptions.computeIfPresent(fileUploadId, (id, subscription) -> {
+            subscription.emitters.remove(emitter);
+            return subscription.emitters.isEmpty() ? null : subscription;
+        });
+    }
+
+    private static class Subscription {
+        private final IngestionProgress progress;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile Snapshot lastSent;
+
+        private Subscription(IngestionProgress progress) {
+            this.progress = progress;
+            this.lastSent = Snapshot.of(progress);
+        }
+    }
+
+    private record Snapshot(IngestionProgress.Stage stage, long parsed, long inserted, long duplicates) {
+        static Snapshot of(IngestionProgress progress) {
+            return new Snapshot(progress.getStage(), progress.getParsedRecords(),
+                    progress.getInsertedRecords(), progress.getDuplicateRecords());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.estatement.service;
+
+import com.estatement.config.IngestionProperties;
+import com.estatement.dto.IngestionCheckpoint;
+import com.estatement.dto.IngestionResult;
+import com.estatement.entity.FileUpload;
+import com.estatement.repository.FileUploadRepository;
+import com.estatement.util.ChannelTeeInputStream;
+import com.estatement.util.StatementStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs CSV ingestion for stored uploads (plain, gzip or zip), either on the bounded ingestion executor
+ * or inline on the caller's thread, and records the outcome on the {@link FileUpload}.
+ */
+@Service
+@Slf4j
+public class IngestionJobService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    // Same content as an earlier completed upload; not processed again, see FileUpload.duplicateOf
+    public static final String STATUS_DUPLICATE = "DUPLICATE";
+
+    public static final String NO_NEW_RECORDS_MESSAGE =
+            "No new or valid records were found in the file. All transactions may be duplicates or invalid.";
+
+    public static final String INTERRUPTED_UPLOAD_MESSAGE =
+            "The upload was interrupted by a server restart before the file was fully received. Please upload it again.";
+
+    private final FileProcessingService fileProcessingService;
+    private final FileStorageService fileStorageService;
+    private final FileUploadRepository fileUploadRepository;
+    private final IngestionProgressTracker progressTracker;
+    private final IngestionProperties ingestionProperties;
+    private final ThreadPoolTaskExecutor ingestionExecutor;
+
+    public IngestionJobService(FileProcessingService fileProcessingService,
+                               FileStorageService fileStorageService,
+                               FileUploadRepository fileUploadRepository,
+                               IngestionProgressTracker progressTracker,
+                               IngestionProperties ingestionProperties,
+                               @Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor) {
+        this.fileProcessingService = fileProcessingService;
+        this.fileStorageService = fileStorageService;
+        this.fileUploadRepository = fileUploadRepository;
+        this.progressTracker = progressTracker;
+        this.ingestionProperties = ingestionProperties;
+        this.ingestionExecutor = ingestionExecutor;
+    }
+
+    /**
+     * Queues the upload for background processing.
+     *
+     * @throws TaskRejectedException when every worker is busy and the queue is full
+     */
+    public void submit(Long fileUploadId) {
+        progressTracker.start(fileUploadId);
+        try {
+            ingestionExecutor.execute(() -> process(fileUploadId));
+            log.info("Queued upload {} for processing ({} active, {} waiting)", fileUploadId,
+                    ingestionExecutor.getActiveCount(), ingestionExecutor.getThreadPoolExecutor().getQueue().size());
+        } catch (TaskRejectedException e) {
+            progressTracker.finish(fileUploadId, IngestionProgress.Stage.FAILED);
+            throw e;
+        }
+    }
+
+    /**
+     * Processes the stored file of an upload and updates its status, record and duplicate counts and error message.
+     * Never throws; failures end up as status FAILED.
+     *
+     * @return the updated upload, or null if it no longer exists
+     */
+    public FileUpload process(Long fileUploadId) {
+        return process(fileUploadId, true);
+    }
+
+    /**
+     * Same as {@link #process(Long)}; with {@code recalculateBalances} off the upload ends COMPLETED
+     * with its rows stored but account balances not yet updated, which the caller then does for several
+     * uploads at once with {@link FileProcessingService#recalculateBalances}.
+     */
+    public FileUpload process(Long fileUploadId, boolean recalculateBalances) {
+        FileUpload fileUpload = startProcessing(fileUploadId);
+        if (fileUpload == null) {
+            return null;
+        }
+
+        try (InputStream fileInputStream = StatementStreams.decompressing(new FileInputStream(fileUpload.getFilePath()))) {
+            log.info("Starting CSV processing of {} (Upload ID: {})", fileUpload.getFilePath(), fileUploadId);
+            ingest(fileUpload, fileInputStream, recalculateBalances);
+        } catch (Exception e) {
+            markFailed(fileUpload, e);
+        }
+        return finishProcessing(fileUpload);
+    }
+
+    /**
+     * Single-pass variant of {@link #process}: parses the upload straight from the request body
+     * while writing the same bytes to the upload's stored file, instead of storing first and reading it back.
+     * Runs on the caller's thread since the body is only readable during the request.
+     * Never throws; failures end up as status FAILED.
+     *
+     * @return the updated upload, or null if it no longer exists
+     */
+    public FileUpload processWhileStoring(Long fileUploadId, InputStream body) {
+        FileUpload fileUpload = startProcessing(fileUploadId);
+        if (fileUpload == null) {
+            return null;
+        }
+
+        MessageDigest digest = FileStorageService.newContentDigest();
+        boolean stored = false;
+        try (InputStream teed = new ChannelTeeInputStream(new DigestInputStream(body, digest),
+                fileStorageService.openForWrite(fileUpload.getFilename()))) {
+            log.info("Starting single-pass CSV processing into {} (Upload ID: {})", fileUpload.getFilePath(), fileUploadId);
+            // The stored copy keeps the bytes as sent; only the parser sees them decompressed.
+            // The parser closes its input when done, which here stores whatever it left unread
+            // and leaves the request body and the file channel open for the try block to close
+            ingest(fileUpload, StatementStreams.decompressing(StatementStreams.drainingOnClose(teed)), true);
+            teed.transferTo(OutputStream.nullOutputStream());
+            stored = true;
+        } catch (Exception e) {
+            // Only part of the body was stored and nothing will read it again
+            fileStorageService.delete(fileUpload.getFilename());
+            markFailed(fileUpload, e);
+        }
+
+        if (stored) {
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            String contentAddressedName = fileStorageService.moveToContentAddress(fileUpload.getFilename(), contentHash);
+            fileUpload.setFilename(contentAddressedName);
+            fileUpload.setFilePath("uploads/" + contentAddressedName);
+            fileUpload.setContentHash(contentHash);
+        }
+        return finishProcessing(fileUpload);
+    }
+
+    private FileUpload startProcessing(Long fileUploadId) {
+        FileUpload fileUpload = fileUploadRepository.findById(fileUploadId).orElse(null);
+        if (fileUpload == null) {
+            log.warn("Upload {} disappeared before it could be processed", fileUploadId);
+            progressTracker.finish(fileUploadId, IngestionProgress.Stage.FAILED);
+            return null;
+        }
+
+        fileUpload.setStatus(STATUS_PROCESSING);
+        fileUpload = fileUploadRepository.save(fileUpload);
+        progressTracker.stage(fileUploadId, IngestionProgress.Stage.PARSING);
+        return fileUpload;
+    }
+
+    private void ingest(FileUpload fileUpload, InputStream inputStream, boolean recalculateBalances) {
+        Long fileUploadId = fileUpload.getId();
+        IngestionResult result;
+        if (ingestionProperties.isSortedEnabled()) {
+            result = fileProcessingService.processAndInsertTransactionsSorted(
+                    fileUpload.getFilename(), inputStream, fileUploadId, recalculateBalances);
+        } else if (ingestionProperties.isStreamingEnabled()) {
+            result = fileProcessingService.processAndInsertTransactionsStreaming(
+                    fileUpload.getFilename(), inputStream, fileUploadId, checkpointOf(fileUpload), recalculateBalances);
+        } else {
+            result = fileProcessingService.processAndInsertTransactions(
+                    fileUpload.getFilename(), inputStream, fileUploadId, recalculateBalances);
+        }
+
+        fileUpload.setRecordCount(result.getInsertedCount());
+        fileUpload.setDuplicateCount(result.getDuplicateCount());
+        fileUpload.setRejectedCount(result.getRejectedCount());
+        if (result.getInsertedCount() == 0) {
+            log.warn("File processing completed, but no new records were inserted (Upload ID: {}, duplicates: {})",
+                    fileUploadId, result.getDuplicateCount());
+            fileUpload.setStatus(STATUS_FAILED);
+            fileUpload.setErrorMessage(NO_NEW_RECORDS_MESSAGE);
+        } else {
+            log.info("File processing completed. Records inserted: {}, duplicates skipped: {}, rows rejected: {}",
+                    result.getInsertedCount(), result.getDuplicateCount(), result.getRejectedCount());
+            fileUpload.setStatus(STATUS_COMPLETED);
+        }
+    }
+
+    // Only an interrupted run leaves a checkpoint behind; finishProcessing clears it
+    private IngestionCheckpoint checkpointOf(FileUpload fileUpload) {
+        if (fileUpload.getCheckpointRecord() == 0) {
+            return new IngestionCheckpoint();
+        }
+        return new IngestionCheckpoint(fileUpload.getCheckpointRecord(), fileUpload.getRecordCount(),
+                fileUpload.getDuplicateCount(), fileUpload.getRejectedCount());
+    }
+
+    private void markFailed(FileUpload fileUpload, Exception e) {
+        log.error("Error processing upload {}: {}", fileUpload.getId(), e.getMessage(), e);
+        fileUpload.setStatus(STATUS_FAILED);
+        fileUpload.setErrorMessage(e.getMessage());
+    }
+
+    /**
+     * Marks the upload as a {@link #STATUS_DUPLICATE} of the oldest completed upload of the same user with the
+     * same content hash, if there is one. Other users' uploads are never linked, since the link would reveal
+     * their id and status. The caller saves the upload.
+     *
+     * @return whether such an upload was found
+     */
+    public boolean linkToEarlierResult(FileUpload fileUpload) {
+        if (fileUpload.getContentHash() == null || fileUpload.getUploadedBy() == null) {
+            return false;
+        }
+        Optional<FileUpload> earlier = fileUploadRepository.findFirstByContentHashAndUploadedByAndStatusAndIdNotOrderByIdAsc(
+                fileUpload.getContentHash(), fileUpload.getUploadedBy(), STATUS_COMPLETED, fileUpload.getId());
+        if (earlier.isEmpty()) {
+            return false;
+        }
+
+        log.info("Upload {} has the same content as completed upload {}, not processing it again",
+                fileUpload.getId(), earlier.get().getId());
+        fileUpload.setStatus(STATUS_DUPLICATE);
+        fileUpload.setDuplicateOf(earlier.get().getId());
+        fileUpload.setRecordCount(0);
+        fileUpload.setErrorMessage(null);
+        return true;
+    }
+
+    /**
+     * Requeues uploads the previous run left {@link #STATUS_QUEUED} or {@link #STATUS_PROCESSING}, oldest first.
+     * Streaming uploads continue after their last checkpoint. Single-pass uploads cut off before the whole file
+     * was received (no content hash yet) cannot be read again and are marked failed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedUploads() {
+        if (!ingestionProperties.isResumeOnStartupEnabled()) {
+            return;
+        }
+        List<FileUpload> interrupted = fileUploadRepository.findByStatusInOrderByIdAsc(
+                List.of(STATUS_QUEUED, STATUS_PROCESSING));
+        for (FileUpload fileUpload : interrupted) {
+            if (fileUpload.getContentHash() == null) {
+                log.warn("Upload {} was interrupted before its file was fully received", fileUpload.getId());
+                fileUpload.setStatus(STATUS_FAILED);
+                fileUpload.setErrorMessage(INTERRUPTED_UPLOAD_MESSAGE);
+                fileUpload.setCheckpointRecord(0);
+                fileUploadRepository.save(fileUpload);
+                continue;
+            }
+            try {
+                log.info("Resuming interrupted upload {} (status {}, checkpoint at record {})",
+                        fileUpload.getId(), fileUpload.getStatus(), fileUpload.getCheckpointRecord());
+                submit(fileUpload.getId());
+            } catch (TaskRejectedException e) {
+                log.warn("Ingestion queue is full, upload {} stays {} until the next restart",
+                        fileUpload.getId(), fileUpload.getStatus());
+            }
+        }
+    }
+
+    private FileUpload finishProcessing(FileUpload fileUpload) {
+        // An identical file processed concurrently, or sent through single-pass upload, only shows up here
+        if (STATUS_FAILED.equals(fileUpload.getStatus()) && NO_NEW_RECORDS_MESSAGE.equals(fileUpload.getErrorMessage())) {
+            linkToEarlierResult(fileUpload);
+        }
+
+        fileUpload.setCheckpointRecord(0);
+        FileUpload saved = fileUploadRepository.save(fileUpload);
+        progressTracker.finish(fileUpload.getId(), STATUS_FAILED.equals(saved.getStatus())
+                ? IngestionProgress.Stage.FAILED
+                : IngestionProgress.Stage.COMPLETED);
+        return saved;
+    }
+}
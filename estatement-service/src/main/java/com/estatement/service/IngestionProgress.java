@@ -0,0 +1,114 @@
+package com.estatement.service;
+
+import com.estatement.util.StagedPipeline;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Live progress of one upload while it is being ingested.
+ * Counters are plain atomics; {@link IngestionEventPublisher} samples them at a fixed rate
+ * instead of being called on every change, so updating them costs nothing measurable.
+ */
+public class IngestionProgress {
+
+    public enum Stage {
+        // Stored and waiting for a worker
+        QUEUED,
+        PARSING,
+        // Looking up which parsed rows already exist
+        DEDUPING,
+        INSERTING,
+        BALANCING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final Long fileUploadId;
+    private final AtomicLong parsedRecords = new AtomicLong();
+    private final AtomicLong insertedRecords = new AtomicLong();
+    private final AtomicLong duplicateRecords = new AtomicLong();
+    private volatile Stage stage = Stage.QUEUED;
+    private volatile LocalDateTime updatedAt = LocalDateTime.now();
+    // Figures of the staged pipeline writing the upload, when it runs in one
+    private volatile Supplier<List<StagedPipeline.StageStats>> pipelineStats;
+
+    public IngestionProgress(Long fileUploadId) {
+        this.fileUploadId = fileUploadId;
+    }
+
+    public Long getFileUploadId() {
+        return fileUploadId;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public void setStage(Stage stage) {
+        this.stage = stage;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public long getParsedRecords() {
+        return parsedRecords.get();
+    }
+
+    public long getInsertedRecords() {
+        return insertedRecords.get();
+    }
+
+    public long getDuplicateRecords() {
+        return duplicateRecords.get();
+    }
+
+    /**
+     * Counts one parsed row. Only an uncontended atomic increment, cheap enough for the parse loop;
+     * readers pick the change up on their next sample.
+     */
+    public void countParsed() {
+        parsedRecords.incrementAndGet();
+    }
+
+    public void addParsed(long count) {
+        parsedRecords.addAndGet(count);
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void addInserted(long count) {
+        insertedRecords.addAndGet(count);
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void addDuplicates(long count) {
+        duplicateRecords.addAndGet(count);
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void setPipelineStats(Supplier<List<StagedPipeline.StageStats>> pipelineStats) {
+        this.pipelineStats = pipelineStats;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("stage", stage);
+        map.put("parsedRecords", getParsedRecords());
+        map.put("insertedRecords", getInsertedRecords());
+        map.put("duplicateRecords", getDuplicateRecords());
+        map.put("updatedAt", updatedAt);
+        Supplier<List<StagedPipeline.StageStats>> stats = pipelineStats;
+        if (stats != null) {
+            // Per stage: rows handled, rows per busy second and chunks waiting in front of it
+            map.put("pipeline", stats.get());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,71 @@
+package com.estatement.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of uploads that are queued or being processed.
+ * Calls for an upload that is not tracked (e.g. synchronous processing) are ignored.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngestionProgressTracker {
+
+    private final IngestionEventPublisher eventPublisher;
+
+    private final Map<Long, IngestionProgress> inFlight = new ConcurrentHashMap<>();
+
+    public IngestionProgress start(Long fileUploadId) {
+        IngestionProgress progress = new IngestionProgress(fileUploadId);
+        inFlight.put(fileUploadId, progress);
+        return progress;
+    }
+
+    public Optional<IngestionProgress> get(Long fileUploadId) {
+        return Optional.ofNullable(inFlight.get(fileUploadId));
+    }
+
+    public void stage(Long fileUploadId, IngestionProgress.Stage stage) {
+        IngestionProgress progress = inFlight.get(fileUploadId);
+        if (progress != null) {
+            progress.setStage(stage);
+        }
+    }
+
+    public void addParsed(Long fileUploadId, long count) {
+        IngestionProgress progress = inFlight.get(fileUploadId);
+        if (progress != null) {
+            progress.addParsed(count);
+        }
+    }
+
+    public void addInserted(Long fileUploadId, long count) {
+        IngestionProgress progress = inFlight.get(fileUploadId);
+        if (progress != null) {
+            progress.addInserted(count);
+        }
+    }
+
+    public void addDuplicates(Long fileUploadId, long count) {
+        IngestionProgress progress = inFlight.get(fileUploadId);
+        if (progress != null) {
+            progress.addDuplicates(count);
+        }
+    }
+
+    public void finish(Long fileUploadId, IngestionProgress.Stage finalStage) {
+        IngestionProgress progress = inFlight.remove(fileUploadId);
+        if (progress != null) {
+            progress.setStage(finalStage);
+            eventPublisher.finished(progress);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,171 @@
+package com.estatement.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Per-upload report of the rows that could not be imported, stored as
+ * {@code uploads/quarantine/<fileUploadId>.csv} with the columns Line, Reason and Raw Record.
+ * Replaces logging every rejected row; the import itself only logs the count.
+ */
+@Service
+@Slf4j
+public class QuarantineService {
+
+    private static final CSVFormat QUARANTINE_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setHeader("Line", "Reason", "Raw Record")
+            .build();
+    private static final CSVFormat QUARANTINE_READ_FORMAT = CSVFormat.Builder.create(QUARANTINE_FORMAT)
+            .setSkipHeaderRecord(true)
+            .build();
+
+    private final Path quarantineLocation;
+
+    public QuarantineService() {
+        this.quarantineLocation = Paths.get("uploads", "quarantine").toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.quarantineLocation);
+        } catch (Exception ex) {
+            throw new RuntimeException("Could not create the quarantine directory.", ex);
+        }
+    }
+
+    /**
+     * Starts the report of one processing run. Nothing is written until the first row is rejected;
+     * a report left by an earlier run of the same upload is replaced.
+     */
+    public QuarantineWriter open(Long fileUploadId) {
+        Path path = pathFor(fileUploadId);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not remove old quarantine report {}: {}", path, ex.getMessage());
+        }
+        return new QuarantineWriter(path, 0);
+    }
+
+    /**
+     * Continues the report of an interrupted run after its checkpoint: the first {@code keepRows} rows are kept,
+     * rows written after the checkpoint are dropped since those records are read again.
+     */
+    public QuarantineWriter resume(Long fileUploadId, int keepRows) {
+        if (keepRows == 0) {
+            return open(fileUploadId);
+        }
+        Path path = pathFor(fileUploadId);
+        Path kept = path.resolveSibling(path.getFileName() + ".tmp");
+        try (CSVParser report = CSVParser.parse(path, StandardCharsets.UTF_8, QUARANTINE_READ_FORMAT);
+             CSVPrinter printer = new CSVPrinter(Files.newBufferedWriter(kept, StandardCharsets.UTF_8), QUARANTINE_FORMAT)) {
+            int copied = 0;
+            for (CSVRecord row : report) {
+                if (copied++ == keepRows) {
+                    break;
+                }
+                printer.printRecord(row);
+            }
+        } catch (IOException ex) {
+            log.warn("Could not read quarantine report {} to resume it, starting a new one: {}", path, ex.getMessage());
+            QuarantineWriter writer = open(fileUploadId);
+            writer.rejectedCount = keepRows;
+            return writer;
+        }
+        try {
+            Files.move(kept, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not resume quarantine report " + path, ex);
+        }
+        return new QuarantineWriter(path, keepRows);
+    }
+
+    public Optional<Path> find(Long fileUploadId) {
+        Path path = pathFor(fileUploadId);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path pathFor(Long fileUploadId) {
+        return quarantineLocation.resolve(fileUploadId + ".csv");
+    }
+
+    /**
+     * Collects rejected rows of one upload. Not thread-safe.
+     */
+    public static class QuarantineWriter implements Closeable {
+
+        private final Path path;
+        private CSVPrinter printer;
+        private int rejectedCount;
+        private boolean broken;
+
+        private QuarantineWriter(Path path, int rejectedCount) {
+            this.path = path;
+            this.rejectedCount = rejectedCount;
+        }
+
+        /**
+         * Records a rejected row. Failing to write the report never fails the import; the row is still counted.
+         */
+        public void reject(long lineNumber, String reason, String rawRecord) {
+            rejectedCount++;
+            if (broken) {
+                return;
+            }
+            try {
+                if (printer == null) {
+                    printer = Files.exists(path)
+                            ? new CSVPrinter(Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND),
+                                    CSVFormat.DEFAULT)
+                            : new CSVPrinter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), QUARANTINE_FORMAT);
+                }
+                printer.printRecord(lineNumber, reason, rawRecord);
+            } catch (IOException ex) {
+                broken = true;
+                log.warn("Could not write quarantine report {}: {}", path, ex.getMessage());
+            }
+        }
+
+        public int getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * Writes buffered rows to disk, so the report holds every row counted so far.
+         */
+        public void flush() {
+            if (printer == null || broken) {
+                return;
+            }
+            try {
+                printer.flush();
+            } catch (IOException ex) {
+                broken = true;
+                log.warn("Could not write quarantine report {}: {}", path, ex.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (printer == null) {
+                return;
+            }
+            try {
+                printer.close(true);
+            } catch (IOException ex) {
+                log.warn("Could not close quarantine report {}: {}", path, ex.getMessage());
+            }
+        }
+    }
+}
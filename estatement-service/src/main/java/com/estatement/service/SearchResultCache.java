@@ -0,0 +1,136 @@
+package com.estatement.service;
+
+import com.estatement.config.SearchProperties;
+import com.estatement.dto.PageResponse;
+import com.estatement.dto.SearchCriteria;
+import com.estatement.dto.TransactionDTO;
+import com.estatement.util.ExpiringLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Recently served listing and search pages, so paging back and forth or repeating a filter does not go
+ * to MySQL again. Bounded by {@code app.search.cache-max-entries} and {@code app.search.cache-ttl-seconds}.
+ * <p>
+ * Ingestion and balance recalculation call {@link #evictAccounts} for the accounts they changed. That drops
+ * the pages of those accounts and every page not limited to one account, since those may show any of them.
+ * Inside a transaction the pages are dropped again once it commits, so a page read in between is not kept.
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+
+    private final SearchProperties searchProperties;
+    private final ExpiringLruCache<Key, PageResponse<TransactionDTO>> cache;
+
+    public SearchResultCache(SearchProperties searchProperties) {
+        this.searchProperties = searchProperties;
+        this.cache = new ExpiringLruCache<>(searchProperties.getCacheMaxEntries(),
+                searchProperties.getCacheTtlSeconds() * 1000L);
+    }
+
+    /**
+     * The cached page for {@code key}, or the one {@code loader} reads, which is then cached.
+     * With {@code app.search.cache-enabled} off every call goes to the loader.
+     */
+    public PageResponse<TransactionDTO> get(Key key, Supplier<PageResponse<TransactionDTO>> loader) {
+        if (!searchProperties.isCacheEnabled()) {
+            return loader.get();
+        }
+        return cache.get(key, loader);
+    }
+
+    public void evictAccounts(Collection<String> accountNumbers) {
+        if (accountNumbers.isEmpty()) {
+            return;
+        }
+        Set<String> accounts = Set.copyOf(accountNumbers);
+        evict(key -> key.accountNumber() == null || accounts.contains(key.accountNumber()));
+    }
+
+    public void evictAccount(String accountNumber) {
+        evictAccounts(List.of(accountNumber));
+    }
+
+    public void evictAll() {
+        evict(key -> true);
+    }
+
+    public Map<String, Object> getStats() {
+        ExpiringLruCache.Stats stats = cache.getStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", searchProperties.isCacheEnabled());
+        result.put("size", stats.size());
+        result.put("maxEntries", stats.maxEntries());
+        result.put("ttlSeconds", stats.ttlMillis() / 1000);
+        result.put("hits", stats.hits());
+        result.put("misses", stats.misses());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictions());
+        result.put("expirations", stats.expirations());
+        result.put("invalidations", stats.invalidations());
+        return result;
+    }
+
+    private void evict(Predicate<Key> matching) {
+        int removed = cache.invalidate(matching);
+        log.debug("Evicted {} cached pages", removed);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(matching);
+                }
+            });
+        }
+    }
+
+    /**
+     * What a page was read with. {@code accountNumber} is the single account the page is limited to,
+     * null when it spans accounts.
+     */
+    public record Key(String accountNumber, List<Object> parameters) {
+
+        public static Key listing(String accountNumber, int page, int size, String sortBy, String sortDirection,
+                                  String cursor) {
+            return new Key(accountNumber, Arrays.asList("listing", page, size, sortBy,
+                    normalizeDirection(sortDirection), cursor));
+        }
+
+        // Blank filters are the same as none, and descriptions are matched ignoring case
+        public static Key search(SearchCriteria criteria) {
+            String description = blankToNull(criteria.getDescription());
+            return new Key(blankToNull(criteria.getAccountNumber()), Arrays.asList("search",
+                    criteria.getStartDate(), criteria.getEndDate(),
+                    description != null ? description.toLowerCase(Locale.ROOT) : null,
+                    blankToNull(criteria.getTxnRefNumber()), criteria.getPage(), criteria.getSize(),
+                    criteria.getSortBy(), normalizeDirection(criteria.getSortDirection()), criteria.getCursor()));
+        }
+
+        public static Key dateRange(String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
+                                    int page, int size) {
+            return new Key(accountNumber, Arrays.asList("range", startDate, endDate, page, size));
+        }
+
+        private static String normalizeDirection(String sortDirection) {
+            return sortDirection != null ? sortDirection.toUpperCase(Locale.ROOT) : null;
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
+}
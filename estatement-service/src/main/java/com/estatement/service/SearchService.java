@@ -4,7 +4,14 @@ import com.estatement.dto.PageResponse;
 import com.estatement.dto.SearchCriteria;
 import com.estatement.dto.TransactionDTO;
 import com.estatement.entity.Transaction;
+import com.estatement.repository.DescriptionSearchIndex;
+import com.estatement.repository.TransactionKeysetRepository;
+import com.estatement.repository.TransactionReadRepository;
 import com.estatement.repository.TransactionRepository;
+import com.estatement.repository.TransactionSorts;
+import com.estatement.repository.TransactionSpecifications;
+import com.estatement.util.PageCursor;
+import com.estatement.util.TransactionMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,10 +20,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,107 +29,71 @@ import java.util.stream.Collectors;
 public class SearchService {
 
     private final TransactionRepository transactionRepository;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-
-    @Transactional(readOnly = true)
+    private final TransactionKeysetRepository transactionKeysetRepository;
+    private final DescriptionSearchIndex descriptionSearchIndex;
+    private final TransactionReadRepository transactionReadRepository;
+    private final TransactionMapper transactionMapper;
+    private final SearchResultCache searchResultCache;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Pages by keyset on {@code (dateTime, id)} when the criteria carry a cursor (empty for the first page);
+     * {@code page} and {@code sortBy} are then ignored.
+     *
+     * @throws IllegalArgumentException when the cursor is not one this service issued,
+     *                                  or {@code sortBy} is not allowed (see {@link TransactionSorts})
+     */
     public PageResponse<TransactionDTO> searchTransactions(SearchCriteria criteria) {
         log.debug("Searching transactions with criteria: {}", criteria);
-
-        Sort sort = criteria.getSortDirection().equalsIgnoreCase("ASC")
-                ? Sort.by(criteria.getSortBy()).ascending()
-                : Sort.by(criteria.getSortBy()).descending();
-
-        Pageable pageable = PageRequest.of(criteria.getPage(), criteria.getSize(), sort);
-
-        Page<Transaction> transactionPage = transactionRepository.advancedSearch(
-                criteria.getAccountNumber(),
-                criteria.getStartDate(),
-                criteria.getEndDate(),
-                criteria.getDescription(),
-                criteria.getTxnRefNumber(),
-                pageable
-        );
-
-        return convertToPageResponse(transactionPage);
+        // Outside a transaction, so a cached page does not take a connection
+        return searchResultCache.get(SearchResultCache.Key.search(criteria),
+                () -> transactionTemplate.execute(status -> loadSearchPage(criteria)));
     }
 
-    @Transactional(readOnly = true)
     public PageResponse<TransactionDTO> searchByAccountAndDateRange(
             String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
             int page, int size) {
         log.debug("Searching by account: {} and date range: {} to {}", accountNumber, startDate, endDate);
-
-        Pageable pageable = PageRequest.of(page, size, Sort.by("dateTime").descending());
-        Page<Transaction> transactionPage = transactionRepository.findByAccountNumberAndDateRange(
-                accountNumber, startDate, endDate, pageable
-        );
-
-        return convertToPageResponse(transactionPage);
+        return searchResultCache.get(SearchResultCache.Key.dateRange(accountNumber, startDate, endDate, page, size),
+                () -> transactionTemplate.execute(status -> loadDateRangePage(accountNumber, startDate, endDate, page, size)));
     }
 
-    private PageResponse<TransactionDTO> convertToPageResponse(Page<Transaction> transactionPage) {
-        List<TransactionDTO> dtos = transactionPage.getContent()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        PageResponse<TransactionDTO> response = new PageResponse<>();
-        response.setContent(dtos);
-        response.setCurrentPage(transactionPage.getNumber());
-        response.setTotalPages(transactionPage.getTotalPages());
-        response.setTotalElements(transactionPage.getTotalElements());
-        response.setPageSize(transactionPage.getSize());
-        response.setFirst(transactionPage.isFirst());
-        response.setLast(transactionPage.isLast());
-        response.setEmpty(transactionPage.isEmpty());
-
-        return response;
-    }
+    private PageResponse<TransactionDTO> loadSearchPage(SearchCriteria criteria) {
+        if (criteria.getCursor() != null) {
+            return transactionMapper.toPageResponse(transactionKeysetRepository.findPage(
+                    TransactionSpecifications.matching(criteria, descriptionSearchIndex),
+                    PageCursor.decode(criteria.getCursor()),
+                    criteria.getSortDirection().equalsIgnoreCase("ASC"), criteria.getSize()), criteria.getSize());
+        }
 
-    private TransactionDTO convertToDTO(Transaction transaction) {
-        TransactionDTO dto = new TransactionDTO();
-        dto.setId(transaction.getId());
-        dto.setTxnRefNumber(transaction.getTxnRefNumber());
-        dto.setAccountNumber(transaction.getAccountNumber());
-        dto.setDateTime(transaction.getDateTime());
-        dto.setDescription(transaction.getDescription());
-        dto.setWithdrawals(transaction.getWithdrawals());
-        dto.setCredit(transaction.getCredit());
-        dto.setRunningBalance(transaction.getRunningBalance());
+        Sort sort = TransactionSorts.of(criteria.getSortBy(), criteria.getSortDirection(),
+                TransactionSpecifications.isSingleAccount(criteria));
+        Pageable pageable = PageRequest.of(criteria.getPage(), criteria.getSize(), sort);
 
-        // Formatted strings for display
-        dto.setFormattedDate(transaction.getDateTime().format(DATE_FORMATTER));
-        dto.setFormattedWithdrawals(formatCurrency(transaction.getWithdrawals()));
-        dto.setFormattedCredit(formatCurrency(transaction.getCredit()));
-        dto.setFormattedBalance(formatCurrency(transaction.getRunningBalance()));
+        Page<TransactionDTO> transactionPage = transactionReadRepository.findPage(
+                TransactionSpecifications.matching(criteria, descriptionSearchIndex), pageable);
 
-        return dto;
+        return transactionMapper.toPageResponse(transactionPage);
     }
 
-    private String formatCurrency(java.math.BigDecimal amount) {
-        if (amount == null || amount.compareTo(java.math.BigDecimal.ZERO) == 0) {
-            return "0.00";
-        }
-        return String.format("%.2f", amount);
+    private PageResponse<TransactionDTO> loadDateRangePage(String accountNumber, LocalDateTime startDate,
+                                                           LocalDateTime endDate, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("dateTime").descending().and(Sort.by("id").descending()));
+        Page<TransactionDTO> transactionPage = transactionReadRepository.findPage(
+                TransactionSpecifications.hasAccountNumber(accountNumber)
+                        .and(TransactionSpecifications.inDateRange(startDate, endDate)), pageable);
+
+        return transactionMapper.toPageResponse(transactionPage);
     }
 
     @Transactional(readOnly = true)
     public Page<Transaction> searchTransactionsForExport(SearchCriteria criteria) {
         log.debug("Searching transactions for export with criteria: {}", criteria);
 
-        Sort sort = criteria.getSortDirection().equalsIgnoreCase("ASC")
-                ? Sort.by(criteria.getSortBy()).ascending()
-                : Sort.by(criteria.getSortBy()).descending();
-
+        Sort sort = TransactionSorts.of(criteria.getSortBy(), criteria.getSortDirection(),
+                TransactionSpecifications.isSingleAccount(criteria));
         Pageable pageable = PageRequest.of(0, Integer.MAX_VALUE, sort);
 
-        return transactionRepository.advancedSearch(
-                criteria.getAccountNumber(),
-                criteria.getStartDate(),
-                criteria.getEndDate(),
-                criteria.getDescription(),
-                criteria.getTxnRefNumber(),
-                pageable
-        );
+        return transactionRepository.findAll(TransactionSpecifications.matching(criteria, descriptionSearchIndex), pageable);
     }
 }
\ No newline at end of file
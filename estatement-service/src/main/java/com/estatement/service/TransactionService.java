@@ -3,7 +3,13 @@ package com.estatement.service;
 import com.estatement.dto.PageResponse;
 import com.estatement.dto.TransactionDTO;
 import com.estatement.entity.Transaction;
+import com.estatement.repository.TransactionKeysetRepository;
+import com.estatement.repository.TransactionReadRepository;
 import com.estatement.repository.TransactionRepository;
+import com.estatement.repository.TransactionSorts;
+import com.estatement.repository.TransactionSpecifications;
+import com.estatement.util.PageCursor;
+import com.estatement.util.TransactionMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -12,9 +18,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.time.format.DateTimeFormatter;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,35 +27,67 @@ import java.util.stream.Collectors;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-
-    @Transactional(readOnly = true)
-    public PageResponse<TransactionDTO> getAllTransactions(int page, int size, String sortBy, String sortDirection) {
+    private final TransactionKeysetRepository transactionKeysetRepository;
+    private final TransactionReadRepository transactionReadRepository;
+    private final TransactionMapper transactionMapper;
+    private final SearchResultCache searchResultCache;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * With a non-null {@code cursor} the listing is paged by keyset on {@code (dateTime, id)} instead:
+     * {@code page} and {@code sortBy} are ignored and an empty cursor returns the first page.
+     *
+     * @throws IllegalArgumentException when the cursor is not one this service issued,
+     *                                  or {@code sortBy} is not allowed (see {@link TransactionSorts})
+     */
+    public PageResponse<TransactionDTO> getAllTransactions(int page, int size, String sortBy, String sortDirection,
+                                                           String cursor) {
         log.debug("Getting all transactions - Page: {}, Size: {}", page, size);
+        // Outside a transaction, so a cached page does not take a connection
+        return searchResultCache.get(SearchResultCache.Key.listing(null, page, size, sortBy, sortDirection, cursor),
+                () -> transactionTemplate.execute(status -> loadAllTransactions(page, size, sortBy, sortDirection, cursor)));
+    }
+
+    // Keyset paging with a non-null cursor, as in getAllTransactions
+    public PageResponse<TransactionDTO> getTransactionsByAccount(
+            String accountNumber, int page, int size, String sortBy, String sortDirection, String cursor) {
+        log.debug("Getting transactions for account: {}", accountNumber);
+        return searchResultCache.get(
+                SearchResultCache.Key.listing(accountNumber, page, size, sortBy, sortDirection, cursor),
+                () -> transactionTemplate.execute(status ->
+                        loadAccountTransactions(accountNumber, page, size, sortBy, sortDirection, cursor)));
+    }
+
+    private PageResponse<TransactionDTO> loadAllTransactions(int page, int size, String sortBy, String sortDirection,
+                                                             String cursor) {
+        if (cursor != null) {
+            return transactionMapper.toPageResponse(transactionKeysetRepository.findPage(TransactionSpecifications.all(),
+                    PageCursor.decode(cursor), sortDirection.equalsIgnoreCase("ASC"), size), size);
+        }
 
-        Sort sort = sortDirection.equalsIgnoreCase("ASC")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+        Sort sort = TransactionSorts.of(sortBy, sortDirection, false);
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Transaction> transactionPage = transactionRepository.findAll(pageable);
+        Page<TransactionDTO> transactionPage = transactionReadRepository.findPage(TransactionSpecifications.all(), pageable);
 
-        return convertToPageResponse(transactionPage);
+        return transactionMapper.toPageResponse(transactionPage);
     }
 
-    @Transactional(readOnly = true)
-    public PageResponse<TransactionDTO> getTransactionsByAccount(
-            String accountNumber, int page, int size, String sortBy, String sortDirection) {
-        log.debug("Getting transactions for account: {}", accountNumber);
+    private PageResponse<TransactionDTO> loadAccountTransactions(
+            String accountNumber, int page, int size, String sortBy, String sortDirection, String cursor) {
+        if (cursor != null) {
+            return transactionMapper.toPageResponse(transactionKeysetRepository.findPage(
+                    TransactionSpecifications.hasAccountNumber(accountNumber),
+                    PageCursor.decode(cursor), sortDirection.equalsIgnoreCase("ASC"), size), size);
+        }
 
-        Sort sort = sortDirection.equalsIgnoreCase("ASC")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+        Sort sort = TransactionSorts.of(sortBy, sortDirection, true);
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Transaction> transactionPage = transactionRepository.findByAccountNumber(accountNumber, pageable);
+        Page<TransactionDTO> transactionPage = transactionReadRepository.findPage(
+                TransactionSpecifications.hasAccountNumber(accountNumber), pageable);
 
-        return convertToPageResponse(transactionPage);
+        return transactionMapper.toPageResponse(transactionPage);
     }
 
     @Transactional(readOnly = true)
@@ -64,52 +101,6 @@ public class TransactionService {
         log.debug("Getting transaction by id: {}", id);
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
-        return convertToDTO(transaction);
-    }
-
-    private PageResponse<TransactionDTO> convertToPageResponse(Page<Transaction> transactionPage) {
-        List<TransactionDTO> dtos = transactionPage.getContent()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        PageResponse<TransactionDTO> response = new PageResponse<>();
-        response.setContent(dtos);
-        response.setCurrentPage(transactionPage.getNumber());
-        response.setTotalPages(transactionPage.getTotalPages());
-        response.setTotalElements(transactionPage.getTotalElements());
-        response.setPageSize(transactionPage.getSize());
-        response.setFirst(transactionPage.isFirst());
-        response.setLast(transactionPage.isLast());
-        response.setEmpty(transactionPage.isEmpty());
-
-        return response;
-    }
-
-    private TransactionDTO convertToDTO(Transaction transaction) {
-        TransactionDTO dto = new TransactionDTO();
-        dto.setId(transaction.getId());
-        dto.setTxnRefNumber(transaction.getTxnRefNumber());
-        dto.setAccountNumber(transaction.getAccountNumber());
-        dto.setDateTime(transaction.getDateTime());
-        dto.setDescription(transaction.getDescription());
-        dto.setWithdrawals(transaction.getWithdrawals());
-        dto.setCredit(transaction.getCredit());
-        dto.setRunningBalance(transaction.getRunningBalance());
-
-        // Formatted strings for display
-        dto.setFormattedDate(transaction.getDateTime().format(DATE_FORMATTER));
-        dto.setFormattedWithdrawals(formatCurrency(transaction.getWithdrawals()));
-        dto.setFormattedCredit(formatCurrency(transaction.getCredit()));
-        dto.setFormattedBalance(formatCurrency(transaction.getRunningBalance()));
-
-        return dto;
-    }
-
-    private String formatCurrency(java.math.BigDecimal amount) {
-        if (amount == null || amount.compareTo(java.math.BigDecimal.ZERO) == 0) {
-            return "0.00";
-        }
-        return String.format("%.2f", amount);
+        return transactionMapper.toDTO(transaction);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.estatement.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Input stream that writes every byte it hands out to a channel as well,
+ * so one pass over an upload both feeds the parser and stores the raw file.
+ * Skipped bytes are read through and stored too. Closing the stream closes the channel.
+ */
+public class ChannelTeeInputStream extends FilterInputStream {
+
+    private final WritableByteChannel channel;
+
+    public ChannelTeeInputStream(InputStream in, WritableByteChannel channel) {
+        super(in);
+        this.channel = channel;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            write(ByteBuffer.wrap(new byte[]{(byte) b}));
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            write(ByteBuffer.wrap(b, off, n));
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] scratch = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(scratch, 0, (int) Math.min(scratch.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
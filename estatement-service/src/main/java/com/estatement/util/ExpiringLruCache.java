@@ -0,0 +1,125 @@
+package com.estatement.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Small in-memory cache bounded by entry count and age. Past {@code maxEntries} the least recently read
+ * entry goes; an entry older than {@code ttlMillis} is dropped the next time it is looked up.
+ * <p>
+ * Values are loaded outside the lock, so a slow load never blocks other lookups; two threads missing the
+ * same key both load it. A value loaded while entries were {@link #invalidate invalidated} is returned but
+ * not kept, since it may have been read before the change that caused the invalidation.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public ExpiringLruCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    // clock returns milliseconds; tests pass their own
+    ExpiringLruCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The cached value for {@code key}, or the one {@code loader} returns, which is kept unless it is null.
+     * Whatever the loader throws is passed on and nothing is cached.
+     */
+    public V get(K key, Supplier<V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && clock.getAsLong() < entry.expiresAt) {
+                hits++;
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        V value = loader.get();
+        synchronized (this) {
+            if (value != null && loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes every entry whose key matches; loads still running when this is called are not cached.
+     *
+     * @return entries removed
+     */
+    public synchronized int invalidate(Predicate<? super K> matching) {
+        generation++;
+        int removed = 0;
+        for (Iterator<K> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (matching.test(keys.next())) {
+                keys.remove();
+                removed++;
+            }
+        }
+        invalidations += removed;
+        return removed;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), maxEntries, ttlMillis, hits, misses, evictions, expirations, invalidations);
+    }
+
+    /**
+     * @param evictions     entries dropped to stay within {@code maxEntries}
+     * @param expirations   entries found older than {@code ttlMillis}
+     * @param invalidations entries removed by {@link #invalidate}
+     */
+    public record Stats(int size, int maxEntries, long ttlMillis, long hits, long misses,
+                        long evictions, long expirations, long invalidations) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups > 0 ? (double) hits / lookups : 0;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.estatement.util;
+
+import com.estatement.entity.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts parsed transactions by account number, date time and input order without holding them all in memory.
+ * Rows are collected in runs of {@code runSize}; each full run is sorted and spilled to a temp file, and
+ * {@link #sorted()} k-way merges the runs (first merging them down to {@value #MAX_MERGE_WIDTH} when there
+ * are more, so open files and buffers stay bounded). Input that fits in one run is never written to disk.
+ * Not thread-safe; {@link #close()} deletes the temp files.
+ */
+public class ExternalTransactionSorter implements Closeable {
+
+    static final int MAX_MERGE_WIDTH = 64;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Comparator<SortedRow> ROW_ORDER = Comparator
+            .comparing((SortedRow row) -> row.transaction().getAccountNumber())
+            .thenComparing(row -> row.transaction().getDateTime())
+            .thenComparingLong(SortedRow::sequence);
+
+    private final int runSize;
+    private final Path tempDirectory;
+    private final List<SortedRow> run;
+    private final List<Path> spilledRuns = new ArrayList<>();
+    private final List<Closeable> openCursors = new ArrayList<>();
+    private long sequence;
+
+    public ExternalTransactionSorter(int runSize, Path tempDirectory) {
+        this.runSize = Math.max(1, runSize);
+        this.tempDirectory = tempDirectory;
+        this.run = new ArrayList<>(Math.min(this.runSize, 1 << 16));
+    }
+
+    public void add(Transaction transaction) throws IOException {
+        run.add(new SortedRow(sequence++, transaction));
+        if (run.size() >= runSize) {
+            spill();
+        }
+    }
+
+    public long size() {
+        return sequence;
+    }
+
+    public int getSpilledRuns() {
+        return spilledRuns.size();
+    }
+
+    /**
+     * Ends the input and returns every row in order. Call at most once.
+     */
+    public TransactionCursor sorted() throws IOException {
+        if (spilledRuns.isEmpty()) {
+            run.sort(ROW_ORDER);
+            List<SortedRow> rows = new ArrayList<>(run);
+            run.clear();
+            return new TransactionCursor() {
+                private int next;
+
+                @Override
+                public Transaction next() {
+                    return next < rows.size() ? rows.get(next++).transaction() : null;
+                }
+            };
+        }
+
+        if (!run.isEmpty()) {
+            spill();
+        }
+        while (spilledRuns.size() > MAX_MERGE_WIDTH) {
+            List<Path> group = new ArrayList<>(spilledRuns.subList(0, MAX_MERGE_WIDTH));
+            spilledRuns.subList(0, MAX_MERGE_WIDTH).clear();
+            spilledRuns.add(mergeToFile(group));
+        }
+        MergeCursor cursor = new MergeCursor(spilledRuns);
+        openCursors.add(cursor);
+        return () -> {
+            SortedRow row = cursor.next();
+            return row != null ? row.transaction() : null;
+        };
+    }
+
+    private void spill() throws IOException {
+        run.sort(ROW_ORDER);
+        Path file = Files.createTempFile(tempDirectory, "statement-run-", ".bin");
+        spilledRuns.add(file);
+        try (DataOutputStream out = newOutput(file)) {
+            for (SortedRow row : run) {
+                write(out, row);
+            }
+        }
+        run.clear();
+    }
+
+    private Path mergeToFile(List<Path> group) throws IOException {
+        Path file = Files.createTempFile(tempDirectory, "statement-run-", ".bin");
+        try (MergeCursor cursor = new MergeCursor(group); DataOutputStream out = newOutput(file)) {
+            SortedRow row;
+            while ((row = cursor.next()) != null) {
+                write(out, row);
+            }
+        }
+        for (Path merged : group) {
+            Files.deleteIfExists(merged);
+        }
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Closeable cursor : openCursors) {
+            cursor.close();
+        }
+        openCursors.clear();
+        for (Path file : spilledRuns) {
+            Files.deleteIfExists(file);
+        }
+        spilledRuns.clear();
+        run.clear();
+    }
+
+    /**
+     * Rows in sorted order; {@link #next()} returns null once all have been read.
+     */
+    @FunctionalInterface
+    public interface TransactionCursor {
+        Transaction next() throws IOException;
+    }
+
+    private record SortedRow(long sequence, Transaction transaction) {
+    }
+
+    private static final class RunReader {
+        private final DataInputStream in;
+        private SortedRow current;
+
+        private RunReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        }
+
+        private boolean advance() throws IOException {
+            current = read(in);
+            return current != null;
+        }
+    }
+
+    private static final class MergeCursor implements Closeable {
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heads =
+                new PriorityQueue<>((a, b) -> ROW_ORDER.compare(a.current, b.current));
+
+        private MergeCursor(List<Path> runs) throws IOException {
+            try {
+                for (Path file : runs) {
+                    RunReader reader = new RunReader(file);
+                    readers.add(reader);
+                    if (reader.advance()) {
+                        heads.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private SortedRow next() throws IOException {
+            RunReader reader = heads.poll();
+            if (reader == null) {
+                return null;
+            }
+            SortedRow row = reader.current;
+            if (reader.advance()) {
+                heads.add(reader);
+            }
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+            readers.clear();
+            heads.clear();
+        }
+    }
+
+    private static DataOutputStream newOutput(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    private static void write(DataOutputStream out, SortedRow row) throws IOException {
+        Transaction transaction = row.transaction();
+        out.writeLong(row.sequence());
+        writeString(out, transaction.getTxnRefNumber());
+        writeString(out, transaction.getAccountNumber());
+        out.writeLong(transaction.getDateTime().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(transaction.getDateTime().getNano());
+        writeString(out, transaction.getDescription());
+        writeString(out, transaction.getWithdrawals() != null ? transaction.getWithdrawals().toPlainString() : null);
+        writeString(out, transaction.getCredit() != null ? transaction.getCredit().toPlainString() : null);
+        out.writeLong(transaction.getFileUploadId() != null ? transaction.getFileUploadId() : -1L);
+    }
+
+    private static SortedRow read(DataInputStream in) throws IOException {
+        long sequence;
+        try {
+            sequence = in.readLong();
+        } catch (EOFException end) {
+            return null;
+        }
+        Transaction transaction = new Transaction();
+        transaction.setTxnRefNumber(readString(in));
+        transaction.setAccountNumber(readString(in));
+        transaction.setDateTime(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+        transaction.setDescription(readString(in));
+        String withdrawals = readString(in);
+        transaction.setWithdrawals(withdrawals != null ? new BigDecimal(withdrawals) : null);
+        String credit = readString(in);
+        transaction.setCredit(credit != null ? new BigDecimal(credit) : null);
+        long fileUploadId = in.readLong();
+        transaction.setFileUploadId(fileUploadId >= 0 ? fileUploadId : null);
+        return new SortedRow(sequence, transaction);
+    }
+
+    // Length-prefixed UTF-8; -1 for null. Unlike writeUTF there is no 64KB limit.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.estatement.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position of a keyset page over transactions ordered by {@code (dateTime, id)}: the key of the row a page
+ * starts after (next) or ends before (previous), and the direction the listing is sorted in.
+ * Clients only ever see it {@link #encode() encoded} as an opaque URL-safe string.
+ */
+public final class PageCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean before;
+    private final boolean ascending;
+    private final LocalDateTime dateTime;
+    private final long id;
+
+    private PageCursor(boolean before, boolean ascending, LocalDateTime dateTime, long id) {
+        this.before = before;
+        this.ascending = ascending;
+        this.dateTime = dateTime;
+        this.id = id;
+    }
+
+    // Page of the rows following the given key in listing order
+    public static PageCursor after(LocalDateTime dateTime, long id, boolean ascending) {
+        return new PageCursor(false, ascending, dateTime, id);
+    }
+
+    // Page of the rows preceding the given key in listing order
+    public static PageCursor before(LocalDateTime dateTime, long id, boolean ascending) {
+        return new PageCursor(true, ascending, dateTime, id);
+    }
+
+    /**
+     * @return the cursor, or null for an empty string, which asks for the first page
+     * @throws IllegalArgumentException when the value is not a cursor issued by {@link #encode()}
+     */
+    public static PageCursor decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(DECODER.decode(value), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 5 || !("a".equals(parts[0]) || "b".equals(parts[0]))
+                    || !("ASC".equals(parts[1]) || "DESC".equals(parts[1]))) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(
+                    Long.parseLong(parts[2]), Integer.parseInt(parts[3]), ZoneOffset.UTC);
+            return new PageCursor("b".equals(parts[0]), "ASC".equals(parts[1]), dateTime, Long.parseLong(parts[4]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = (before ? "b" : "a") + ":" + (ascending ? "ASC" : "DESC") + ":"
+                + dateTime.toEpochSecond(ZoneOffset.UTC) + ":" + dateTime.getNano() + ":" + id;
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isBefore() {
+        return before;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,220 @@
+package com.estatement.util;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs items through a fixed sequence of stages, each on its own thread, connected by bounded queues.
+ * The caller is the first stage: {@link #submit} blocks while the first queue is full, so a slow stage
+ * holds back everything before it instead of letting items pile up in memory.
+ * Every stage handles one item at a time and items keep their order end to end.
+ * <p>
+ * A stage returns the item to hand on, or null to drop it. When a stage throws, the pipeline stops:
+ * later {@link #submit} calls and {@link #finish} rethrow the first failure and queued items are discarded.
+ */
+public class StagedPipeline<T> implements Closeable {
+
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int queueCapacity;
+    private final ToIntFunction<T> rowCount;
+    private final StageCounters source;
+    private final List<Stage> stages = new ArrayList<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private long sourceResumedAt;
+    private boolean started;
+
+    /**
+     * @param name          prefix of the stage thread names
+     * @param sourceStage   name under which the caller's own work between {@link #submit} calls is reported
+     * @param queueCapacity items each queue holds before the stage feeding it blocks
+     * @param rowCount      rows an item stands for, used for the throughput figures
+     */
+    public StagedPipeline(String name, String sourceStage, int queueCapacity, ToIntFunction<T> rowCount) {
+        this.name = name;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.rowCount = rowCount;
+        this.source = new StageCounters(sourceStage);
+    }
+
+    public StagedPipeline<T> stage(String stageName, Function<T, T> action) {
+        if (started) {
+            throw new IllegalStateException("Pipeline " + name + " is already running");
+        }
+        stages.add(new Stage(stageName, action));
+        return this;
+    }
+
+    public StagedPipeline<T> start() {
+        if (stages.isEmpty()) {
+            throw new IllegalStateException("Pipeline " + name + " has no stages");
+        }
+        started = true;
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            stage.thread = new Thread(() -> stage.run(next), name + "-" + stage.counters.name);
+            stage.thread.setDaemon(true);
+            stage.thread.start();
+        }
+        sourceResumedAt = System.nanoTime();
+        return this;
+    }
+
+    /**
+     * Hands an item to the first stage, waiting while its queue is full.
+     *
+     * @throws RuntimeException the failure of a stage, once one has failed
+     */
+    public void submit(T item) throws InterruptedException {
+        source.record(rowCount.applyAsInt(item), System.nanoTime() - sourceResumedAt);
+        put(stages.get(0), item);
+        sourceResumedAt = System.nanoTime();
+    }
+
+    /**
+     * Waits until every submitted item has passed the last stage.
+     *
+     * @throws RuntimeException the failure of a stage, if one failed
+     */
+    public void finish() throws InterruptedException {
+        put(stages.get(0), END);
+        for (Stage stage : stages) {
+            stage.thread.join();
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Stops the stage threads without waiting for queued items. Does nothing after {@link #finish}.
+     */
+    @Override
+    public void close() {
+        for (Stage stage : stages) {
+            if (stage.thread != null && stage.thread.isAlive()) {
+                stage.thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Current figures of every stage, the caller's first.
+     */
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>(stages.size() + 1);
+        stats.add(source.snapshot(0, 0));
+        for (Stage stage : stages) {
+            stats.add(stage.counters.snapshot(stage.queue.size(), queueCapacity));
+        }
+        return stats;
+    }
+
+    private void put(Stage stage, Object item) throws InterruptedException {
+        // Polling instead of a plain put, so nobody waits forever on a stage that died
+        while (!stage.queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            throwIfFailed();
+        }
+        throwIfFailed();
+    }
+
+    private void throwIfFailed() {
+        RuntimeException failed = failure.get();
+        if (failed != null) {
+            throw failed;
+        }
+    }
+
+    /**
+     * @param queued        items waiting in front of the stage
+     * @param rowsPerSecond rows handled per second the stage was busy, i.e. what it manages when never kept waiting
+     */
+    public record StageStats(String stage, long items, long rows, long busyMillis, long rowsPerSecond,
+                             int queued, int queueCapacity) {
+    }
+
+    private class Stage {
+        private final StageCounters counters;
+        private final Function<T, T> action;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private Thread thread;
+
+        private Stage(String stageName, Function<T, T> action) {
+            this.counters = new StageCounters(stageName);
+            this.action = action;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void run(Stage next) {
+            try {
+                while (true) {
+                    Object taken = queue.take();
+                    if (taken != END && failure.get() == null) {
+                        T item = (T) taken;
+                        // Counted before the stage runs, since it may shrink the item
+                        int rows = rowCount.applyAsInt(item);
+                        long startedAt = System.nanoTime();
+                        T result = apply(item);
+                        counters.record(rows, System.nanoTime() - startedAt);
+                        if (result != null && next != null) {
+                            next.queue.put(result);
+                        }
+                    }
+                    if (taken == END) {
+                        if (next != null) {
+                            next.queue.put(END);
+                        }
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, new IllegalStateException("Pipeline " + name + " was stopped"));
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private T apply(T item) {
+            try {
+                return action.apply(item);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } catch (Error e) {
+                failure.compareAndSet(null, new IllegalStateException(
+                        "Pipeline stage " + counters.name + " failed: " + e.getMessage(), e));
+            }
+            return null;
+        }
+    }
+
+    private class StageCounters {
+        private final String name;
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        private StageCounters(String name) {
+            this.name = name;
+        }
+
+        private void record(int itemRows, long nanos) {
+            items.incrementAndGet();
+            rows.addAndGet(itemRows);
+            busyNanos.addAndGet(nanos);
+        }
+
+        private StageStats snapshot(int queued, int capacity) {
+            long busy = busyNanos.get();
+            long handled = rows.get();
+            long rowsPerSecond = busy > 0 ? handled * 1_000_000_000L / busy : 0;
+            return new StageStats(name, items.get(), handled, busy / 1_000_000, rowsPerSecond, queued, capacity);
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.estatement.util;
+
+import com.estatement.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pull parser for bank statement CSV files.
+ * <p>
+ * Column positions are resolved once from the header. Records are tokenized from a reusable
+ * char buffer into a reusable value buffer, and the fixed {@code dd-MM-yyyy HH:mm} timestamp and
+ * plain decimal amounts are decoded straight from those chars, so the only Strings created per row
+ * are the text fields of the resulting {@link Transaction}. Unusual values fall back to
+ * {@link LocalDateTime#parse} / {@code new BigDecimal(String)}, which keeps the results identical to
+ * the commons-csv based parser in {@code FileProcessingService}.
+ * <p>
+ * Dialect: comma separated, double-quote enclosed fields with {@code ""} escapes, CR, LF or CRLF
+ * line ends, empty lines skipped, values trimmed, a leading UTF-8 BOM ignored.
+ * <p>
+ * Usage: {@code while (parser.next()) { Transaction t = parser.toTransaction(uploadId); ... }}.
+ * When {@code toTransaction} returns null, {@link #getRejectReason()} and {@link #getRawRecord()}
+ * describe the rejected row. Not thread-safe.
+ */
+@Slf4j
+public class StatementCsvParser implements Closeable {
+
+    public static final String TXN_REF_NUMBER = "Txn Ref Number";
+    public static final String ACCOUNT_NUMBER = "Account Number";
+    public static final String DATE_TIME = "Date Time";
+    public static final String DESCRIPTION = "Description";
+    public static final String WITHDRAWALS = "Withdrawals";
+    public static final String CREDIT = "Credit";
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    private static final int EOF = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Longest unscaled value that always fits in a long
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Decoded field contents of the current record, back to back
+    private char[] values = new char[512];
+    private int valuesLength;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+
+    // Raw characters of the current record, kept for reject reporting
+    private char[] raw = new char[512];
+    private int rawLength;
+
+    private long lineNumber = 1;
+    private long recordLineNumber;
+    private long recordNumber;
+    private boolean emptyRecord;
+
+    private final int txnRefIndex;
+    private final int accountIndex;
+    private final int dateTimeIndex;
+    private final int descriptionIndex;
+    private final int withdrawalsIndex;
+    private final int creditIndex;
+
+    private String rejectReason;
+
+    /**
+     * Reads the header record and resolves the column positions.
+     *
+     * @throws IOException when the input cannot be read or has no header
+     */
+    public StatementCsvParser(Reader reader) throws IOException {
+        this.reader = reader;
+        skipByteOrderMark();
+
+        if (!nextNonEmptyRecord()) {
+            throw new IOException("CSV file is empty: no header record found");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            columns.put(text(i), i);
+        }
+        this.txnRefIndex = columns.getOrDefault(TXN_REF_NUMBER, -1);
+        this.accountIndex = columns.getOrDefault(ACCOUNT_NUMBER, -1);
+        this.dateTimeIndex = columns.getOrDefault(DATE_TIME, -1);
+        this.descriptionIndex = columns.getOrDefault(DESCRIPTION, -1);
+        this.withdrawalsIndex = columns.getOrDefault(WITHDRAWALS, -1);
+        this.creditIndex = columns.getOrDefault(CREDIT, -1);
+        log.debug("CSV columns: {}", columns);
+    }
+
+    /**
+     * Advances to the next non-empty record.
+     *
+     * @return false at end of input
+     */
+    public boolean next() throws IOException {
+        if (!nextNonEmptyRecord()) {
+            return false;
+        }
+        recordNumber++;
+        rejectReason = null;
+        return true;
+    }
+
+    /**
+     * 1-based number of the current data record (the header is not counted), as in CSVRecord.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Physical line on which the current record starts (the header is line 1 unless preceded by empty lines).
+     */
+    public long getLineNumber() {
+        return recordLineNumber;
+    }
+
+    public String getRejectReason() {
+        return rejectReason;
+    }
+
+    /**
+     * The current record exactly as it appeared in the file, without its line terminator.
+     */
+    public String getRawRecord() {
+        return new String(raw, 0, rawLength);
+    }
+
+    /**
+     * Builds a transaction from the current record.
+     *
+     * @return the transaction, or null when the record is invalid (see {@link #getRejectReason()})
+     */
+    public Transaction toTransaction(Long fileUploadId) {
+        String txnRefNumber = text(txnRefIndex);
+        String accountNumber = text(accountIndex);
+
+        if (txnRefNumber == null || txnRefNumber.isEmpty()) {
+            return reject("Transaction reference number is required");
+        }
+        if (accountNumber == null || accountNumber.isEmpty()) {
+            return reject("Account number is required");
+        }
+        if (isBlank(dateTimeIndex)) {
+            return reject("Date/Time is required");
+        }
+
+        LocalDateTime dateTime = decodeDateTime(dateTimeIndex);
+        if (dateTime == null) {
+            return reject("Invalid date format: " + text(dateTimeIndex));
+        }
+
+        String description = text(descriptionIndex);
+
+        Transaction transaction = new Transaction();
+        transaction.setTxnRefNumber(txnRefNumber);
+        transaction.setAccountNumber(accountNumber);
+        transaction.setDescription(description != null ? description : "");
+        transaction.setFileUploadId(fileUploadId);
+        transaction.setDateTime(dateTime);
+        transaction.setWithdrawals(decodeAmount(withdrawalsIndex, WITHDRAWALS));
+        transaction.setCredit(decodeAmount(creditIndex, CREDIT));
+        transaction.setRunningBalance(BigDecimal.ZERO);
+        return transaction;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Transaction reject(String reason) {
+        rejectReason = reason;
+        return null;
+    }
+
+    // ---------------------------------------------------------------- tokenizer
+
+    private boolean nextNonEmptyRecord() throws IOException {
+        while (readRecord()) {
+            if (!emptyRecord) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads one physical record into the value and raw buffers.
+     *
+     * @return false at end of input
+     */
+    private boolean readRecord() throws IOException {
+        fieldCount = 0;
+        valuesLength = 0;
+        rawLength = 0;
+        recordLineNumber = lineNumber;
+
+        int c = read();
+        if (c == EOF) {
+            return false;
+        }
+        if (c == '\n' || c == '\r') {
+            consumeLineEnd(c);
+            emptyRecord = true;
+            return true;
+        }
+        emptyRecord = false;
+
+        while (true) {
+            startField();
+            if (c == '"') {
+                c = readQuotedField();
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    appendValue((char) c);
+                    c = read();
+                }
+            }
+            endField();
+
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\n' || c == '\r') {
+                // The terminator is not part of the raw record
+                rawLength--;
+                consumeLineEnd(c);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads an enclosed field; the opening quote has been consumed.
+     * Returns the first character after the field (delimiter, line end or EOF).
+     */
+    private int readQuotedField() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                return EOF;
+            }
+            if (c == '"') {
+                int following = read();
+                if (following == '"') {
+                    appendValue('"');
+                    continue;
+                }
+                // Closing quote: keep anything up to the delimiter as-is (lenient)
+                c = following;
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    appendValue((char) c);
+                    c = read();
+                }
+                return c;
+            }
+            if (c == '\n') {
+                lineNumber++;
+            } else if (c == '\r' && peek() != '\n') {
+                lineNumber++;
+            }
+            appendValue((char) c);
+        }
+    }
+
+    private void consumeLineEnd(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            position++;
+        }
+        lineNumber++;
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStart.length) {
+            int[] grownStart = new int[fieldCount * 2];
+            int[] grownEnd = new int[fieldCount * 2];
+            System.arraycopy(fieldStart, 0, grownStart, 0, fieldCount);
+            System.arraycopy(fieldEnd, 0, grownEnd, 0, fieldCount);
+            fieldStart = grownStart;
+            fieldEnd = grownEnd;
+        }
+        fieldStart[fieldCount] = valuesLength;
+    }
+
+    private void endField() {
+        fieldEnd[fieldCount] = valuesLength;
+        fieldCount++;
+    }
+
+    private void appendValue(char c) {
+        if (valuesLength == values.length) {
+            char[] grown = new char[values.length * 2];
+            System.arraycopy(values, 0, grown, 0, valuesLength);
+            values = grown;
+        }
+        values[valuesLength++] = c;
+    }
+
+    /**
+     * Reads the next char, also recording it in the raw buffer of the current record.
+     */
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        char c = buffer[position++];
+        appendRaw(c);
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = reader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (peek() == '\ufeff') {
+            position++;
+        }
+    }
+
+    private void appendRaw(char c) {
+        if (rawLength == raw.length) {
+            char[] grown = new char[raw.length * 2];
+            System.arraycopy(raw, 0, grown, 0, rawLength);
+            raw = grown;
+        }
+        raw[rawLength++] = c;
+    }
+
+    // ---------------------------------------------------------------- field decoding
+
+    /**
+     * Trimmed text of a field, or null when the column is missing from the header or the record.
+     */
+    private String text(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return null;
+        }
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        return new String(values, start, end - start);
+    }
+
+    private boolean isBlank(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return true;
+        }
+        int start = trimmedStart(index);
+        return trimmedEnd(index, start) == start;
+    }
+
+    private int trimmedStart(int index) {
+        int start = fieldStart[index];
+        int end = fieldEnd[index];
+        while (start < end && values[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int index, int start) {
+        int end = fieldEnd[index];
+        while (end > start && values[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Decodes {@code dd-MM-yyyy HH:mm} directly from the value buffer.
+     * Anything that is not a plainly valid timestamp in exactly that shape goes through the
+     * formatter, so its lenient resolution (e.g. 31-04 becoming 30-04) and errors stay the same.
+     *
+     * @return the timestamp, or null if it cannot be parsed
+     */
+    private LocalDateTime decodeDateTime(int index) {
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        char[] v = values;
+
+        if (end - start == 16
+                && v[start + 2] == '-' && v[start + 5] == '-' && v[start + 10] == ' ' && v[start + 13] == ':') {
+            int day = twoDigits(v, start);
+            int month = twoDigits(v, start + 3);
+            int year = fourDigits(v, start + 6);
+            int hour = twoDigits(v, start + 11);
+            int minute = twoDigits(v, start + 14);
+            if (day >= 1 && day <= 28 && month >= 1 && month <= 12 && year >= 1
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute);
+            }
+        }
+
+        try {
+            return LocalDateTime.parse(new String(v, start, end - start), DATE_TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static int twoDigits(char[] v, int at) {
+        int tens = v[at] - '0';
+        int ones = v[at + 1] - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return -1;
+        }
+        return tens * 10 + ones;
+    }
+
+    private static int fourDigits(char[] v, int at) {
+        int high = twoDigits(v, at);
+        int low = twoDigits(v, at + 2);
+        if (high < 0 || low < 0) {
+            return -1;
+        }
+        return high * 100 + low;
+    }
+
+    /**
+     * Decodes an amount. Empty, missing or unparsable values give zero, and so do negative ones,
+     * matching the existing import rules.
+     */
+    private BigDecimal decodeAmount(int index, String column) {
+        if (isBlank(index)) {
+            return BigDecimal.ZERO;
+        }
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+
+        BigDecimal amount = decodePlainDecimal(values, start, end);
+        if (amount == null) {
+            String value = new String(values, start, end - start);
+            try {
+                amount = new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                log.debug("Invalid {} amount '{}' for record {}", column.toLowerCase(), value, recordNumber);
+                return BigDecimal.ZERO;
+            }
+        }
+        return amount.signum() < 0 ? BigDecimal.ZERO : amount;
+    }
+
+    /**
+     * Fast path for {@code [+-]digits[.digits]} with at most {@value #MAX_FAST_DIGITS} digits.
+     * Keeps the scale a BigDecimal built from the same text would have. Returns null for anything else.
+     */
+    private static BigDecimal decodePlainDecimal(char[] v, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (v[i] == '+' || v[i] == '-') {
+            negative = v[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = v[i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_FAST_DIGITS) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+}
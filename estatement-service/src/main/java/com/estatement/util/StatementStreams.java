@@ -0,0 +1,145 @@
+package com.estatement.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Accepted statement file types and on-the-fly decompression.
+ * Compressed uploads are stored as received and inflated only while they are parsed,
+ * one buffer at a time, never to disk or fully into memory.
+ */
+@Slf4j
+public final class StatementStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] SUPPORTED_EXTENSIONS = {".csv", ".csv.gz", ".gz", ".zip"};
+
+    private StatementStreams() {
+    }
+
+    public static boolean isSupportedFilename(String filename) {
+        if (filename == null) {
+            return false;
+        }
+        String lower = filename.toLowerCase(Locale.ROOT);
+        for (String extension : SUPPORTED_EXTENSIONS) {
+            if (lower.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wraps the raw upload so it reads as plain CSV. The format is taken from the leading bytes,
+     * not the file name: gzip is inflated as a stream, a zip archive yields its first {@code .csv} entry,
+     * anything else is passed through unchanged. Closing the result closes {@code raw}.
+     *
+     * @throws IOException when a zip archive contains no CSV file
+     */
+    public static InputStream decompressing(InputStream raw) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(raw, BUFFER_SIZE);
+        int[] magic = peekMagic(in);
+
+        if (magic[0] == 0x1f && magic[1] == 0x8b) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        if (isZipMagic(magic)) {
+            return firstCsvEntry(new ZipInputStream(in));
+        }
+        return in;
+    }
+
+    /**
+     * Wraps {@code in} for a reader that closes what it is given, such as a CSV parser, while the caller still
+     * owns {@code in}: closing the result reads {@code in} to its end instead of closing it, so a tee behind it
+     * still sees every byte, and the caller closes {@code in} itself.
+     */
+    public static InputStream drainingOnClose(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() throws IOException {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        };
+    }
+
+    /**
+     * Hands every CSV entry of a zip archive to {@code action}, in archive order, as a stream that ends with
+     * the entry and must not be closed. Anything that is not a zip archive is handed over once as a whole,
+     * named {@code filename}. Closes {@code raw}.
+     *
+     * @return the number of files handed over
+     * @throws IOException when a zip archive contains no CSV file
+     */
+    public static int forEachCsvFile(InputStream raw, String filename, CsvFileAction action) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(raw, BUFFER_SIZE)) {
+            if (!isZipMagic(peekMagic(in))) {
+                action.accept(filename, in);
+                return 1;
+            }
+            ZipInputStream zip = new ZipInputStream(in);
+            int count = 0;
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (isCsvEntry(entry)) {
+                    String name = entry.getName();
+                    action.accept(name.substring(name.lastIndexOf('/') + 1), zip);
+                    count++;
+                }
+            }
+            if (count == 0) {
+                throw new IOException("Zip archive does not contain a .csv file");
+            }
+            return count;
+        }
+    }
+
+    @FunctionalInterface
+    public interface CsvFileAction {
+        void accept(String filename, InputStream content) throws IOException;
+    }
+
+    private static int[] peekMagic(BufferedInputStream in) throws IOException {
+        in.mark(4);
+        int[] magic = {in.read(), in.read(), in.read(), in.read()};
+        in.reset();
+        return magic;
+    }
+
+    private static boolean isZipMagic(int[] magic) {
+        return magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+    }
+
+    private static InputStream firstCsvEntry(ZipInputStream zip) throws IOException {
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (isCsvEntry(entry)) {
+                log.debug("Reading zip entry {}", entry.getName());
+                return zip;
+            }
+        }
+        zip.close();
+        throw new IOException("Zip archive does not contain a .csv file");
+    }
+
+    private static boolean isCsvEntry(ZipEntry entry) {
+        String name = entry.getName();
+        String baseName = name.substring(name.lastIndexOf('/') + 1);
+        // Skip folders and the resource-fork copies macOS adds to archives
+        if (entry.isDirectory() || name.startsWith("__MACOSX/") || baseName.startsWith("._")) {
+            return false;
+        }
+        return baseName.toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+}
@@ -0,0 +1,89 @@
+package com.estatement.util;
+
+import com.estatement.dto.PageResponse;
+import com.estatement.dto.TransactionDTO;
+import com.estatement.entity.Transaction;
+import com.estatement.repository.TransactionKeysetRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Turns transactions into the {@link TransactionDTO}s the listing and search endpoints return.
+ * Reads normally select straight into DTOs (see {@link com.estatement.repository.TransactionReadRepository})
+ * and only need {@link #format}; {@link #toDTO} is for an entity that was loaded anyway.
+ * The {@code toPageResponse} methods assemble the page both endpoints answer with.
+ */
+@Component
+public class TransactionMapper {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    public TransactionDTO toDTO(Transaction transaction) {
+        return format(new TransactionDTO(transaction.getId(), transaction.getTxnRefNumber(),
+                transaction.getAccountNumber(), transaction.getDateTime(), transaction.getDescription(),
+                transaction.getWithdrawals(), transaction.getCredit(), transaction.getRunningBalance()));
+    }
+
+    // Fills in the formatted strings for display from the raw values
+    public TransactionDTO format(TransactionDTO dto) {
+        dto.setFormattedDate(dto.getDateTime().format(DATE_FORMATTER));
+        dto.setFormattedWithdrawals(formatCurrency(dto.getWithdrawals()));
+        dto.setFormattedCredit(formatCurrency(dto.getCredit()));
+        dto.setFormattedBalance(formatCurrency(dto.getRunningBalance()));
+        return dto;
+    }
+
+    // Offset page: totals come from the count query
+    public PageResponse<TransactionDTO> toPageResponse(Page<TransactionDTO> transactionPage) {
+        List<TransactionDTO> dtos = transactionPage.getContent()
+                .stream()
+                .map(this::format)
+                .collect(Collectors.toList());
+
+        PageResponse<TransactionDTO> response = new PageResponse<>();
+        response.setContent(dtos);
+        response.setCurrentPage(transactionPage.getNumber());
+        response.setTotalPages(transactionPage.getTotalPages());
+        response.setTotalElements(transactionPage.getTotalElements());
+        response.setPageSize(transactionPage.getSize());
+        response.setFirst(transactionPage.isFirst());
+        response.setLast(transactionPage.isLast());
+        response.setEmpty(transactionPage.isEmpty());
+
+        return response;
+    }
+
+    // Keyset page: no totals, the cursors tell whether there is a page before or after
+    public PageResponse<TransactionDTO> toPageResponse(TransactionKeysetRepository.CursorPage cursorPage, int size) {
+        List<TransactionDTO> dtos = cursorPage.rows()
+                .stream()
+                .map(this::format)
+                .collect(Collectors.toList());
+
+        PageResponse<TransactionDTO> response = new PageResponse<>();
+        response.setContent(dtos);
+        response.setCurrentPage(0);
+        response.setTotalPages(-1);
+        response.setTotalElements(-1);
+        response.setPageSize(size);
+        response.setFirst(cursorPage.previousCursor() == null);
+        response.setLast(cursorPage.nextCursor() == null);
+        response.setEmpty(dtos.isEmpty());
+        response.setNextCursor(cursorPage.nextCursor());
+        response.setPreviousCursor(cursorPage.previousCursor());
+
+        return response;
+    }
+
+    private String formatCurrency(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) == 0) {
+            return "0.00";
+        }
+        return String.format("%.2f", amount);
+    }
+}
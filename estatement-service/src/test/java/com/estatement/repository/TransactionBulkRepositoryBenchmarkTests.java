@@ -0,0 +1,136 @@
+package com.estatement.repository;
+
+import com.estatement.entity.Account;
+import com.estatement.entity.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the per-entity JPA write path with the JDBC bulk path on the same volume of rows.
+ * Needs the configured MySQL database; run with {@code mvn test -Dbenchmark=true [-Dbenchmark.rows=N]}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionBulkRepositoryBenchmarkTests {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+    private static final int ACCOUNTS = 200;
+    private static final long JPA_UPLOAD_ID = -1001L;
+    private static final long BULK_UPLOAD_ID = -1002L;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionBulkRepository transactionBulkRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE file_upload_id IN (?, ?)", JPA_UPLOAD_ID, BULK_UPLOAD_ID);
+        jdbcTemplate.update("DELETE FROM accounts WHERE account_number LIKE 'BENCH-%'");
+    }
+
+    @Test
+    void compareJpaSaveAllWithBulkInsert() {
+        List<Transaction> jpaRows = generate("JPA", JPA_UPLOAD_ID, ROWS);
+        long jpaStart = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String accountNumber : accountNumbersOf(jpaRows)) {
+                if (!accountRepository.existsByAccountNumber(accountNumber)) {
+                    Account account = new Account();
+                    account.setAccountNumber(accountNumber);
+                    account.setCurrentBalance(BigDecimal.ZERO);
+                    accountRepository.save(account);
+                }
+            }
+            transactionRepository.saveAll(jpaRows);
+        });
+        long jpaNanos = System.nanoTime() - jpaStart;
+
+        List<Transaction> bulkRows = generate("BULK", BULK_UPLOAD_ID, ROWS);
+        long bulkStart = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionBulkRepository.insertMissingAccounts(accountNumbersOf(bulkRows));
+            transactionBulkRepository.insertTransactions(bulkRows);
+        });
+        long bulkNanos = System.nanoTime() - bulkStart;
+
+        System.out.printf("JPA saveAll : %,d rows in %,d ms (%,.0f rows/sec)%n", ROWS, jpaNanos / 1_000_000, rowsPerSecond(jpaNanos));
+        System.out.printf("JDBC bulk   : %,d rows in %,d ms (%,.0f rows/sec)%n", ROWS, bulkNanos / 1_000_000, rowsPerSecond(bulkNanos));
+
+        assertEquals(ROWS, countForUpload(JPA_UPLOAD_ID));
+        assertEquals(ROWS, countForUpload(BULK_UPLOAD_ID));
+    }
+
+    @Test
+    void refsRepeatedAcrossSlicesCountAsDuplicates() {
+        List<Transaction> rows = generate("DEDUPE", BULK_UPLOAD_ID, 1000);
+        List<Transaction> withRepeats = new ArrayList<>(rows);
+        // Second statement of the same call repeats half of the first one
+        withRepeats.addAll(generate("DEDUPE", BULK_UPLOAD_ID, 500));
+        Integer inserted = transactionTemplate.execute(status -> {
+            transactionBulkRepository.insertMissingAccounts(accountNumbersOf(withRepeats));
+            return transactionBulkRepository.insertTransactionsIgnoringDuplicates(withRepeats);
+        });
+
+        assertEquals(1000, inserted);
+        assertEquals(1000, countForUpload(BULK_UPLOAD_ID));
+    }
+
+    private List<Transaction> generate(String prefix, long fileUploadId, int count) {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction t = new Transaction();
+            t.setTxnRefNumber("BENCH-" + prefix + "-" + i);
+            t.setAccountNumber("BENCH-" + prefix + "-ACC-" + (i % ACCOUNTS));
+            t.setDateTime(start.plusMinutes(i));
+            t.setDescription("Benchmark row " + i);
+            t.setCredit(i % 2 == 0 ? new BigDecimal("100.00") : BigDecimal.ZERO);
+            t.setWithdrawals(i % 2 == 0 ? BigDecimal.ZERO : new BigDecimal("40.00"));
+            t.setRunningBalance(BigDecimal.ZERO);
+            t.setFileUploadId(fileUploadId);
+            rows.add(t);
+        }
+        return rows;
+    }
+
+    private static Set<String> accountNumbersOf(List<Transaction> rows) {
+        Set<String> accountNumbers = new TreeSet<>();
+        rows.forEach(t -> accountNumbers.add(t.getAccountNumber()));
+        return accountNumbers;
+    }
+
+    private int countForUpload(long fileUploadId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE file_upload_id = ?", Integer.class, fileUploadId);
+        return count != null ? count : 0;
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+}
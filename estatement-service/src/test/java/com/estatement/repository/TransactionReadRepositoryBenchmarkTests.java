@@ -0,0 +1,139 @@
+package com.estatement.repository;
+
+import com.estatement.dto.TransactionDTO;
+import com.estatement.entity.Transaction;
+import com.estatement.util.TransactionMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares reading transaction pages as entities mapped to DTOs with selecting them straight into DTOs,
+ * on the same pages: time and bytes allocated per page.
+ * Needs the configured MySQL database; run with {@code mvn test -Dbenchmark=true [-Dbenchmark.pages=N]}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionReadRepositoryBenchmarkTests {
+
+    private static final int ROWS = 20_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 200);
+    private static final String ACCOUNT = "BENCH-READ-ACC";
+    private static final long UPLOAD_ID = -1003L;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionReadRepository transactionReadRepository;
+
+    @Autowired
+    private TransactionBulkRepository transactionBulkRepository;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Transaction t = new Transaction();
+            t.setTxnRefNumber("BENCH-READ-" + i);
+            t.setAccountNumber(ACCOUNT);
+            t.setDateTime(start.plusMinutes(i));
+            t.setDescription("Benchmark read row " + i);
+            t.setCredit(i % 2 == 0 ? new BigDecimal("100.00") : BigDecimal.ZERO);
+            t.setWithdrawals(i % 2 == 0 ? BigDecimal.ZERO : new BigDecimal("40.00"));
+            t.setRunningBalance(new BigDecimal(i * 30));
+            t.setFileUploadId(UPLOAD_ID);
+            rows.add(t);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionBulkRepository.insertMissingAccounts(Set.of(ACCOUNT));
+            transactionBulkRepository.insertTransactions(rows);
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE file_upload_id = ?", UPLOAD_ID);
+        jdbcTemplate.update("DELETE FROM accounts WHERE account_number = ?", ACCOUNT);
+    }
+
+    @Test
+    void compareEntityPagesWithProjectedPages() {
+        Specification<Transaction> filter = TransactionSpecifications.hasAccountNumber(ACCOUNT);
+        Sort sort = TransactionSorts.of("dateTime", "DESC", true);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        assertEquals(readEntityPage(readOnly, filter, PageRequest.of(7, PAGE_SIZE, sort)),
+                readProjectedPage(readOnly, filter, PageRequest.of(7, PAGE_SIZE, sort)));
+
+        measure("Entities + mapper", page -> readEntityPage(readOnly, filter, PageRequest.of(page, PAGE_SIZE, sort)));
+        measure("DTO projection   ", page -> readProjectedPage(readOnly, filter, PageRequest.of(page, PAGE_SIZE, sort)));
+    }
+
+    // Each page in its own read-only transaction, as the services read them
+    private List<TransactionDTO> readEntityPage(TransactionTemplate readOnly, Specification<Transaction> filter,
+                                                Pageable pageable) {
+        return readOnly.execute(status -> transactionRepository.findAll(filter, pageable).getContent()
+                .stream()
+                .map(transactionMapper::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    private List<TransactionDTO> readProjectedPage(TransactionTemplate readOnly, Specification<Transaction> filter,
+                                                   Pageable pageable) {
+        return readOnly.execute(status -> transactionReadRepository.findPage(filter, pageable).getContent()
+                .stream()
+                .map(transactionMapper::format)
+                .collect(Collectors.toList()));
+    }
+
+    // Warms up on the first pages, then reads PAGES pages on this thread
+    private void measure(String label, IntFunction<List<TransactionDTO>> readPage) {
+        for (int page = 0; page < 20; page++) {
+            readPage.apply(page);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < PAGES; i++) {
+            readPage.apply(i % (ROWS / PAGE_SIZE));
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s: %,d pages of %d in %,d ms (%,.2f ms/page, %,d KB allocated/page)%n",
+                label, PAGES, PAGE_SIZE, nanos / 1_000_000, nanos / 1_000_000.0 / PAGES, allocated / 1024 / PAGES);
+    }
+}
@@ -0,0 +1,215 @@
+package com.estatement.repository;
+
+import com.estatement.dto.SearchCriteria;
+import com.estatement.entity.Transaction;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on the SQL that common search combinations generate and checks that MySQL plans them
+ * on an index: no full scan, and no filesort where the index already delivers the requested order.
+ * Needs the configured MySQL database; run with {@code mvn test -Dexplain=true}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.estatement.repository.TransactionSearchExplainTests$CapturingInspector")
+@EnabledIfSystemProperty(named = "explain", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionSearchExplainTests {
+
+    private static final int ROWS = 20_000;
+    private static final int ACCOUNTS = 20;
+    private static final long UPLOAD_ID = -2001L;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionBulkRepository transactionBulkRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DescriptionSearchIndex descriptionSearchIndex;
+
+    @BeforeAll
+    void seed() throws InterruptedException {
+        List<Transaction> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Transaction t = new Transaction();
+            t.setTxnRefNumber("EXPLAIN-" + i);
+            t.setAccountNumber("EXPLAIN-ACC-" + (i % ACCOUNTS));
+            t.setDateTime(START.plusMinutes(i));
+            t.setDescription(i % 10 == 0 ? "POS purchase " + i : "Transfer " + i);
+            t.setCredit(i % 2 == 0 ? new BigDecimal("100.00") : BigDecimal.ZERO);
+            t.setWithdrawals(i % 2 == 0 ? BigDecimal.ZERO : new BigDecimal("40.00"));
+            t.setRunningBalance(BigDecimal.ZERO);
+            t.setFileUploadId(UPLOAD_ID);
+            rows.add(t);
+        }
+        Set<String> accountNumbers = new TreeSet<>();
+        rows.forEach(t -> accountNumbers.add(t.getAccountNumber()));
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionBulkRepository.insertMissingAccounts(accountNumbers);
+            transactionBulkRepository.insertTransactions(rows);
+        });
+        descriptionSearchIndex.create();
+        while (descriptionSearchIndex.isBuilding()) {
+            Thread.sleep(100);
+        }
+        jdbcTemplate.execute("ANALYZE TABLE transactions");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE file_upload_id = ?", UPLOAD_ID);
+        jdbcTemplate.update("DELETE FROM accounts WHERE account_number LIKE 'EXPLAIN-ACC-%'");
+    }
+
+    @Test
+    void accountOnlyWalksAccountIndexInOrder() {
+        Map<String, Object> plan = explain(criteria("EXPLAIN-ACC-3", null, null, null, null), "dateTime",
+                "'EXPLAIN-ACC-3'");
+        assertEquals("idx_account_date", plan.get("key"));
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    void accountAndDateRangeIsIndexRange() {
+        Map<String, Object> plan = explain(criteria("EXPLAIN-ACC-3", START.plusDays(2), START.plusDays(5), null, null),
+                "dateTime", "'EXPLAIN-ACC-3'", "'2025-01-03 00:00:00'", "'2025-01-06 00:00:00'");
+        assertEquals("idx_account_date", plan.get("key"));
+        assertEquals("range", plan.get("type"));
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    void accountAndDescriptionUsesAnIndex() {
+        Map<String, Object> plan = explain(criteria("EXPLAIN-ACC-3", null, null, "pos", null), "dateTime",
+                "'EXPLAIN-ACC-3'", "'+pos*'");
+        assertTrue(Set.of("idx_account_date", DescriptionSearchIndex.INDEX_NAME).contains(plan.get("key")),
+                () -> "Plan: " + plan);
+    }
+
+    @Test
+    void descriptionAloneUsesFullTextIndex() {
+        assertTrue(descriptionSearchIndex.isAvailable());
+        Map<String, Object> plan = explain(criteria(null, null, null, "purchase", null), "dateTime",
+                "'+purchase*'");
+        assertEquals(DescriptionSearchIndex.INDEX_NAME, plan.get("key"));
+        assertEquals("fulltext", plan.get("type"));
+    }
+
+    @Test
+    void referenceNumberIsUniqueLookup() {
+        Map<String, Object> plan = explain(criteria(null, null, null, null, "EXPLAIN-42"), "dateTime",
+                "'EXPLAIN-42'");
+        assertEquals("uk_txn_ref_number", plan.get("key"));
+        assertEquals("const", plan.get("type"));
+    }
+
+    @Test
+    void dateRangeAloneUsesDateIndex() {
+        Map<String, Object> plan = explain(criteria(null, START.plusDays(2), START.plusDays(3), null, null), "dateTime",
+                "'2025-01-03 00:00:00'", "'2025-01-04 00:00:00'");
+        assertEquals("idx_date_time", plan.get("key"));
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    void noFilterReadsDateIndexInOrder() {
+        Map<String, Object> plan = explain(criteria(null, null, null, null, null), "dateTime");
+        assertEquals("idx_date_time", plan.get("key"));
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    void amountSortStaysWithinAccount() {
+        Map<String, Object> plan = explain(criteria("EXPLAIN-ACC-3", null, null, null, null), "credit",
+                "'EXPLAIN-ACC-3'");
+        assertEquals("idx_account_date", plan.get("key"));
+    }
+
+    /**
+     * Runs the search for page 3, then EXPLAINs its SELECT (not the count) with the placeholders replaced
+     * by {@code literals} in order; the paging placeholders that follow get numbers.
+     */
+    private Map<String, Object> explain(SearchCriteria criteria, String sortBy, String... literals) {
+        Sort sort = TransactionSorts.of(sortBy, "DESC", TransactionSpecifications.isSingleAccount(criteria));
+        CapturingInspector.STATEMENTS.clear();
+        transactionRepository.findAll(TransactionSpecifications.matching(criteria, descriptionSearchIndex),
+                PageRequest.of(3, 20, sort));
+
+        String sql = CapturingInspector.STATEMENTS.stream()
+                .filter(statement -> statement.contains("order by"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No search statement captured"));
+        StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append(next < literals.length ? literals[next] : "20");
+                next++;
+            } else {
+                bound.append(c);
+            }
+        }
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + bound);
+        Map<String, Object> row = plan.get(0);
+        assertNotEquals("ALL", row.get("type"), () -> "Full scan for " + bound + ": " + plan);
+        return row;
+    }
+
+    private static void assertNoFilesort(Map<String, Object> plan) {
+        Object extra = plan.get("Extra");
+        assertFalse(extra != null && extra.toString().contains("Using filesort"), () -> "Filesort: " + plan);
+    }
+
+    private static SearchCriteria criteria(String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
+                                           String description, String txnRefNumber) {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setAccountNumber(accountNumber);
+        criteria.setStartDate(startDate);
+        criteria.setEndDate(endDate);
+        criteria.setDescription(description);
+        criteria.setTxnRefNumber(txnRefNumber);
+        return criteria;
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
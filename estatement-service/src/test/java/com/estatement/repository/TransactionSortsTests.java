@@ -0,0 +1,28 @@
+package com.estatement.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionSortsTests {
+
+    @Test
+    void appendsIdToIndexedOrders() {
+        assertEquals(Sort.by(Sort.Direction.DESC, "dateTime", "id"), TransactionSorts.of("dateTime", "DESC", false));
+        assertEquals(Sort.by(Sort.Direction.ASC, "txnRefNumber", "id"), TransactionSorts.of("txnRefNumber", "asc", false));
+        assertEquals(Sort.by(Sort.Direction.DESC, "dateTime", "id"), TransactionSorts.of(null, null, false));
+    }
+
+    @Test
+    void allowsAmountsOnlyWithinOneAccount() {
+        assertEquals(Sort.by(Sort.Direction.DESC, "credit", "id"), TransactionSorts.of("credit", "DESC", true));
+        assertThrows(IllegalArgumentException.class, () -> TransactionSorts.of("credit", "DESC", false));
+    }
+
+    @Test
+    void rejectsUnknownProperties() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionSorts.of("description", "ASC", true));
+        assertThrows(IllegalArgumentException.class, () -> TransactionSorts.of("fileUpload.id; drop", "ASC", true));
+    }
+}
@@ -0,0 +1,64 @@
+package com.estatement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLruCacheTests {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void servesHitsUntilTheEntryExpires() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, 1000, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("a", () -> "v" + loads.incrementAndGet()));
+        now.set(999);
+        assertEquals("v1", cache.get("a", () -> "v" + loads.incrementAndGet()));
+        now.set(1000);
+        assertEquals("v2", cache.get("a", () -> "v" + loads.incrementAndGet()));
+
+        ExpiringLruCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.expirations());
+    }
+
+    @Test
+    void evictsLeastRecentlyReadBeyondMaxEntries() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, 1000, now::get);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "reloaded");
+        cache.get("c", () -> "c");
+
+        assertEquals("a", cache.get("a", () -> "reloaded"));
+        assertEquals("reloaded", cache.get("b", () -> "reloaded"));
+        assertEquals(2, cache.getStats().size());
+        assertEquals(2, cache.getStats().evictions());
+    }
+
+    @Test
+    void invalidatesMatchingKeysAndDropsLoadsRacingTheInvalidation() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, 1000, now::get);
+        cache.get("acc-1:p0", () -> "one");
+        cache.get("acc-2:p0", () -> "two");
+
+        assertEquals(1, cache.invalidate(key -> key.startsWith("acc-1:")));
+        assertEquals("two", cache.get("acc-2:p0", () -> "reloaded"));
+        assertEquals("reloaded", cache.get("acc-1:p0", () -> "reloaded"));
+
+        String stale = cache.get("acc-3:p0", () -> {
+            cache.invalidate(key -> key.startsWith("acc-3:"));
+            return "stale";
+        });
+        assertEquals("stale", stale);
+        assertEquals("fresh", cache.get("acc-3:p0", () -> "fresh"));
+        assertNull(cache.get("empty", () -> null));
+        assertEquals(1, cache.getStats().invalidations());
+    }
+}
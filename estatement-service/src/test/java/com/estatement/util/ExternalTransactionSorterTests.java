@@ -0,0 +1,117 @@
+package com.estatement.util;
+
+import com.estatement.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalTransactionSorterTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sortsInMemoryWhenInputFitsOneRun() throws IOException {
+        List<Transaction> input = randomTransactions(50, 1);
+        try (ExternalTransactionSorter sorter = new ExternalTransactionSorter(100, tempDir)) {
+            for (Transaction transaction : input) {
+                sorter.add(transaction);
+            }
+            assertEquals(expectedOrder(input), drain(sorter.sorted()));
+            assertEquals(0, sorter.getSpilledRuns());
+        }
+    }
+
+    @Test
+    void mergesSpilledRunsInAccountDateAndInputOrder() throws IOException {
+        // More runs than one merge pass takes, so intermediate merges are exercised too
+        List<Transaction> input = randomTransactions(ExternalTransactionSorter.MAX_MERGE_WIDTH * 7 + 3, 2);
+        try (ExternalTransactionSorter sorter = new ExternalTransactionSorter(5, tempDir)) {
+            for (Transaction transaction : input) {
+                sorter.add(transaction);
+            }
+            assertTrue(sorter.getSpilledRuns() > ExternalTransactionSorter.MAX_MERGE_WIDTH);
+
+            List<String> sorted = drain(sorter.sorted());
+            assertEquals(expectedOrder(input), sorted);
+        }
+        try (Stream<Path> leftovers = Files.list(tempDir)) {
+            assertEquals(0, leftovers.count());
+        }
+    }
+
+    @Test
+    void keepsAllFieldsThroughSpill() throws IOException {
+        Transaction transaction = transaction("T1", "ACC-1", START, "Café \"corner\", €", "12.50", null);
+        transaction.setFileUploadId(42L);
+        try (ExternalTransactionSorter sorter = new ExternalTransactionSorter(1, tempDir)) {
+            sorter.add(transaction);
+            sorter.add(transaction("T2", "ACC-0", START, null, null, "3.00"));
+
+            ExternalTransactionSorter.TransactionCursor cursor = sorter.sorted();
+            assertEquals("T2", cursor.next().getTxnRefNumber());
+            Transaction read = cursor.next();
+            assertEquals("T1", read.getTxnRefNumber());
+            assertEquals("ACC-1", read.getAccountNumber());
+            assertEquals(START, read.getDateTime());
+            assertEquals("Café \"corner\", €", read.getDescription());
+            assertEquals(new BigDecimal("12.50"), read.getWithdrawals());
+            assertNull(read.getCredit());
+            assertEquals(42L, read.getFileUploadId());
+            assertNull(cursor.next());
+        }
+    }
+
+    private static List<Transaction> randomTransactions(int count, long seed) {
+        Random random = new Random(seed);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Few accounts and few distinct times, so equal keys are common and input order decides
+            transactions.add(transaction("T" + i, "ACC-" + random.nextInt(7),
+                    START.plusMinutes(random.nextInt(20)), "row " + i, "1.00", null));
+        }
+        return transactions;
+    }
+
+    private static List<String> expectedOrder(List<Transaction> input) {
+        List<Transaction> expected = new ArrayList<>(input);
+        // List.sort is stable, which gives the input-order tie break
+        expected.sort(Comparator.comparing(Transaction::getAccountNumber).thenComparing(Transaction::getDateTime));
+        return expected.stream().map(Transaction::getTxnRefNumber).toList();
+    }
+
+    private static List<String> drain(ExternalTransactionSorter.TransactionCursor cursor) throws IOException {
+        List<String> refs = new ArrayList<>();
+        Transaction transaction;
+        while ((transaction = cursor.next()) != null) {
+            refs.add(transaction.getTxnRefNumber());
+        }
+        return refs;
+    }
+
+    private static Transaction transaction(String ref, String account, LocalDateTime dateTime,
+                                           String description, String withdrawals, String credit) {
+        Transaction transaction = new Transaction();
+        transaction.setTxnRefNumber(ref);
+        transaction.setAccountNumber(account);
+        transaction.setDateTime(dateTime);
+        transaction.setDescription(description);
+        transaction.setWithdrawals(withdrawals != null ? new BigDecimal(withdrawals) : null);
+        transaction.setCredit(credit != null ? new BigDecimal(credit) : null);
+        return transaction;
+    }
+}
@@ -0,0 +1,38 @@
+package com.estatement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTests {
+
+    @Test
+    void roundTripsThroughOpaqueString() {
+        LocalDateTime key = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+        String encoded = PageCursor.before(key, 4711L, false).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+        PageCursor decoded = PageCursor.decode(encoded);
+        assertTrue(decoded.isBefore());
+        assertFalse(decoded.isAscending());
+        assertEquals(key, decoded.getDateTime());
+        assertEquals(4711L, decoded.getId());
+
+        PageCursor after = PageCursor.decode(PageCursor.after(key, 1L, true).encode());
+        assertFalse(after.isBefore());
+        assertTrue(after.isAscending());
+    }
+
+    @Test
+    void emptyMeansFirstPage() {
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    void rejectsForeignValues() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("YTpERVNDOng6MDox"));
+    }
+}
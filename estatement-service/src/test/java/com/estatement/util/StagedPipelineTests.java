@@ -0,0 +1,61 @@
+package com.estatement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagedPipelineTests {
+
+    @Test
+    void passesItemsThroughEveryStageInOrder() throws InterruptedException {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        try (StagedPipeline<List<Integer>> pipeline = new StagedPipeline<List<Integer>>("test", "parse", 1, List::size)
+                .stage("dedupe", chunk -> chunk.stream().filter(i -> i % 3 != 0).collect(Collectors.toList()))
+                .stage("write", chunk -> {
+                    written.addAll(chunk);
+                    return chunk;
+                })
+                .start()) {
+            for (int i = 0; i < 50; i++) {
+                pipeline.submit(IntStream.range(i * 10, i * 10 + 10).boxed().collect(Collectors.toList()));
+            }
+            pipeline.finish();
+
+            assertEquals(IntStream.range(0, 500).filter(i -> i % 3 != 0).boxed().collect(Collectors.toList()), written);
+            List<StagedPipeline.StageStats> stats = pipeline.getStats();
+            assertEquals(List.of("parse", "dedupe", "write"),
+                    stats.stream().map(StagedPipeline.StageStats::stage).collect(Collectors.toList()));
+            assertEquals(500, stats.get(0).rows());
+            assertEquals(500, stats.get(1).rows());
+            assertEquals(written.size(), stats.get(2).rows());
+            assertEquals(0, stats.get(1).queued());
+            assertEquals(1, stats.get(1).queueCapacity());
+        }
+    }
+
+    @Test
+    void rethrowsFirstStageFailure() throws InterruptedException {
+        try (StagedPipeline<List<Integer>> pipeline = new StagedPipeline<List<Integer>>("test", "parse", 1, List::size)
+                .stage("write", chunk -> {
+                    if (chunk.contains(3)) {
+                        throw new IllegalStateException("lost connection");
+                    }
+                    return chunk;
+                })
+                .start()) {
+            IllegalStateException failure = assertThrows(IllegalStateException.class, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    pipeline.submit(List.of(i));
+                }
+                pipeline.finish();
+            });
+            assertEquals("lost connection", failure.getMessage());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.estatement.util;
+
+import com.estatement.entity.Transaction;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the statement parser against the commons-csv based import rules on a golden corpus
+ * of awkward but realistic rows (quoting, BOM, CRLF, padding, bad dates and amounts, short rows).
+ */
+class StatementCsvParserTests {
+
+    private static final String GOLDEN_CORPUS = "/statements/golden-corpus.csv";
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    @Test
+    void matchesCommonsCsvParserOnGoldenCorpus() throws IOException {
+        List<Object> expected = parseWithCommonsCsv();
+        List<Object> actual = parseWithStatementParser();
+
+        assertEquals(expected.size(), actual.size(), "record count");
+        for (int i = 0; i < expected.size(); i++) {
+            Object e = expected.get(i);
+            Object a = actual.get(i);
+            if (e instanceof String reason) {
+                assertEquals(reason, a, "reject reason of record " + (i + 1));
+                continue;
+            }
+            assertInstanceOf(Transaction.class, a, "record " + (i + 1) + " should parse");
+            Transaction et = (Transaction) e;
+            Transaction at = (Transaction) a;
+            assertEquals(et.getTxnRefNumber(), at.getTxnRefNumber());
+            assertEquals(et.getAccountNumber(), at.getAccountNumber());
+            assertEquals(et.getDateTime(), at.getDateTime(), "dateTime of " + et.getTxnRefNumber());
+            assertEquals(et.getDescription(), at.getDescription());
+            assertEquals(et.getWithdrawals(), at.getWithdrawals(), "withdrawals of " + et.getTxnRefNumber());
+            assertEquals(et.getCredit(), at.getCredit(), "credit of " + et.getTxnRefNumber());
+            assertEquals(et.getFileUploadId(), at.getFileUploadId());
+        }
+    }
+
+    @Test
+    void reportsLineNumberAndRawRecordOfRejectedRows() throws IOException {
+        String csv = "Txn Ref Number,Account Number,Date Time,Description,Withdrawals,Credit\n" +
+                "T1,A1,01-01-2025 10:00,\"two\nlines\",0,1\n" +
+                "\n" +
+                "T2,A1,not a date,x,0,1\n";
+
+        try (StatementCsvParser parser = new StatementCsvParser(new StringReader(csv))) {
+            assertTrue(parser.next());
+            assertNotNull(parser.toTransaction(1L));
+            assertEquals(2, parser.getLineNumber());
+
+            assertTrue(parser.next());
+            assertNull(parser.toTransaction(1L));
+            assertEquals(2, parser.getRecordNumber());
+            assertEquals(5, parser.getLineNumber());
+            assertEquals("T2,A1,not a date,x,0,1", parser.getRawRecord());
+            assertEquals("Invalid date format: not a date", parser.getRejectReason());
+
+            assertFalse(parser.next());
+        }
+    }
+
+    private List<Object> parseWithStatementParser() throws IOException {
+        List<Object> results = new ArrayList<>();
+        try (StatementCsvParser parser = new StatementCsvParser(
+                new InputStreamReader(corpus(), StandardCharsets.UTF_8))) {
+            while (parser.next()) {
+                Transaction transaction = parser.toTransaction(42L);
+                results.add(transaction != null ? transaction : parser.getRejectReason());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reference implementation: the commons-csv configuration and field rules used by FileProcessingService.
+     */
+    private List<Object> parseWithCommonsCsv() throws IOException {
+        CSVFormat format = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreEmptyLines(true)
+                .setTrim(true)
+                .build();
+        List<Object> results = new ArrayList<>();
+        try (CSVParser parser = new CSVParser(new InputStreamReader(corpus(), StandardCharsets.UTF_8), format)) {
+            for (CSVRecord record : parser) {
+                try {
+                    results.add(legacyTransaction(record));
+                } catch (IllegalArgumentException e) {
+                    results.add(e.getMessage());
+                }
+            }
+        }
+        return results;
+    }
+
+    private Transaction legacyTransaction(CSVRecord record) {
+        String txnRefNumber = field(record, "Txn Ref Number");
+        String accountNumber = field(record, "Account Number");
+        String dateTimeStr = field(record, "Date Time");
+        String description = field(record, "Description");
+
+        if (txnRefNumber == null || txnRefNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Transaction reference number is required");
+        }
+        if (accountNumber == null || accountNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Account number is required");
+        }
+        if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
+            throw new IllegalArgumentException("Date/Time is required");
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setTxnRefNumber(txnRefNumber.trim());
+        transaction.setAccountNumber(accountNumber.trim());
+        transaction.setDescription(description != null ? description.trim() : "");
+        transaction.setFileUploadId(42L);
+        try {
+            transaction.setDateTime(LocalDateTime.parse(dateTimeStr.trim(), DATE_TIME_FORMATTER));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
+        }
+        transaction.setWithdrawals(amount(field(record, "Withdrawals")));
+        transaction.setCredit(amount(field(record, "Credit")));
+        return transaction;
+    }
+
+    private static BigDecimal amount(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            BigDecimal amount = new BigDecimal(value.trim());
+            return amount.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : amount;
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private static String field(CSVRecord record, String name) {
+        for (String candidate : new String[]{name, "\ufeff" + name}) {
+            if (record.isMapped(candidate)) {
+                try {
+                    return record.get(candidate);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private InputStream corpus() {
+        InputStream in = getClass().getResourceAsStream(GOLDEN_CORPUS);
+        assertNotNull(in, "golden corpus missing");
+        return in;
+    }
+}
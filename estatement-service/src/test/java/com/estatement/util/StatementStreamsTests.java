@@ -0,0 +1,154 @@
+package com.estatement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementStreamsTests {
+
+    private static final String CSV = "Txn Ref Number,Account Number,Date Time,Description,Withdrawals,Credit\n" +
+            "T1,A1,01-01-2025 10:00,Salary,,100.00\n";
+
+    @Test
+    void passesPlainCsvThrough() throws IOException {
+        assertEquals(CSV, read(StatementStreams.decompressing(new ByteArrayInputStream(bytes(CSV)))));
+    }
+
+    @Test
+    void inflatesGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes(CSV));
+        }
+        assertEquals(CSV, read(StatementStreams.decompressing(new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    @Test
+    void readsFirstCsvEntryOfZip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("__MACOSX/._statement.csv"));
+            zip.write(new byte[]{0, 1, 2});
+            zip.putNextEntry(new ZipEntry("readme.txt"));
+            zip.write(bytes("not a statement"));
+            zip.putNextEntry(new ZipEntry("feed/statement.CSV"));
+            zip.write(bytes(CSV));
+            zip.closeEntry();
+        }
+        assertEquals(CSV, read(StatementStreams.decompressing(new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    @Test
+    void rejectsZipWithoutCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("readme.txt"));
+            zip.write(bytes("not a statement"));
+        }
+        assertThrows(IOException.class, () -> StatementStreams.decompressing(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void splitsZipIntoItsCsvFiles() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("branch-a.csv"));
+            zip.write(bytes(CSV));
+            zip.putNextEntry(new ZipEntry("__MACOSX/._branch-a.csv"));
+            zip.write(new byte[]{0, 1, 2});
+            zip.putNextEntry(new ZipEntry("feeds/branch-b.csv"));
+            zip.write(bytes(CSV + "T2,A1,02-01-2025 10:00,Rent,50.00,\n"));
+        }
+        List<String> files = new ArrayList<>();
+        int count = StatementStreams.forEachCsvFile(new ByteArrayInputStream(out.toByteArray()), "feeds.zip",
+                (filename, content) -> files.add(filename + ":" + new String(content.readAllBytes(), StandardCharsets.UTF_8).length()));
+
+        assertEquals(2, count);
+        assertEquals(List.of("branch-a.csv:" + CSV.length(), "branch-b.csv:" + (CSV.length() + 35)), files);
+    }
+
+    @Test
+    void handsOverPlainFileWhole() throws IOException {
+        List<String> files = new ArrayList<>();
+        StatementStreams.forEachCsvFile(new ByteArrayInputStream(bytes(CSV)), "statement.csv",
+                (filename, content) -> files.add(filename + ":" + new String(content.readAllBytes(), StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("statement.csv:" + CSV), files);
+    }
+
+    @Test
+    void acceptsCompressedFileNames() {
+        assertTrue(StatementStreams.isSupportedFilename("statement.csv"));
+        assertTrue(StatementStreams.isSupportedFilename("statement.CSV.GZ"));
+        assertTrue(StatementStreams.isSupportedFilename("feed.zip"));
+        assertFalse(StatementStreams.isSupportedFilename("statement.xlsx"));
+        assertFalse(StatementStreams.isSupportedFilename(null));
+    }
+
+    @Test
+    void parserClosingItsInputLeavesTheTeedBodyOpenAndStoresTheRest() throws IOException {
+        ClosableBody body = new ClosableBody(bytes(CSV + CSV));
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        try (InputStream teed = new ChannelTeeInputStream(body, Channels.newChannel(stored))) {
+            try (InputStream parsed = StatementStreams.decompressing(StatementStreams.drainingOnClose(teed))) {
+                assertEquals('T', parsed.read());
+            }
+            assertFalse(body.closed);
+            assertEquals(-1, teed.read());
+            assertEquals(CSV + CSV, stored.toString(StandardCharsets.UTF_8));
+        }
+        assertTrue(body.closed);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Like a servlet request body: reading after close fails
+    private static class ClosableBody extends ByteArrayInputStream {
+        private boolean closed;
+
+        private ClosableBody(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            if (closed) {
+                throw new IllegalStateException("Stream closed");
+            }
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public synchronized int read() {
+            if (closed) {
+                throw new IllegalStateException("Stream closed");
+            }
+            return super.read();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
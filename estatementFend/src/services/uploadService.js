@@ -1,6 +1,15 @@
 import axios from 'axios';
 import { useAuthStore } from '@/store/auth.js'; // Import the Pinia auth store
 
+// Files above the multipart limit go through the resumable chunked upload API
+export const MULTIPART_MAX_SIZE = 10 * 1024 * 1024;
+export const MAX_FILE_SIZE = 2 * 1024 * 1024 * 1024;
+const CHUNK_RETRIES = 3;
+
+// Plain CSV or compressed CSV; the server inflates gzip and zip while parsing
+export const isSupportedStatementFile = (file) =>
+  /\.(csv|csv\.gz|gz|zip)$/i.test(file.name);
+
 class UploadService {
   constructor() {
     this.apiClient = axios.create({
@@ -20,7 +29,12 @@ class UploadService {
     });
   }
 
-  async uploadCSVFile(file, onProgress = null) {
+  // onProcessing receives the server's processing progress ({ stage, parsedRecords, insertedRecords, ... })
+  async uploadCSVFile(file, onProgress = null, onProcessing = null) {
+    if (file.size > MULTIPART_MAX_SIZE) {
+      return this.uploadCSVFileChunked(file, onProgress, onProcessing);
+    }
+
     const formData = new FormData();
     // The backend @RequestParam("file") expects the key to be 'file'
     formData.append('file', file); 
@@ -40,6 +54,11 @@ class UploadService {
         },
       });
 
+      // 202 Accepted: the file is stored and processed in the background
+      if (response.status === 202 && response.data?.fileId) {
+        return await this.waitForProcessing(response.data.fileId, onProcessing);
+      }
+
       return {
         success: true,
         data: response.data,
@@ -54,6 +73,168 @@ class UploadService {
     }
   }
 
+  // Uploads the file chunk by chunk; onProgress(percent, { chunk, totalChunks }) fires after every chunk.
+  // The session id is kept in localStorage, so uploading the same file again resumes with the missing chunks.
+  async uploadCSVFileChunked(file, onProgress = null, onProcessing = null) {
+    const resumeKey = `chunked-upload:${file.name}:${file.size}:${file.lastModified}`;
+
+    try {
+      let session = await this.resumeChunkedUpload(resumeKey);
+      if (!session) {
+        const response = await this.apiClient.post('/api/files/uploads', {
+          filename: file.name,
+          totalSize: file.size
+        });
+        session = response.data;
+        localStorage.setItem(resumeKey, session.uploadId);
+      }
+
+      const { uploadId, chunkSize, totalChunks } = session;
+      const missing = session.missingChunks;
+      let received = totalChunks - missing.length;
+      for (const index of missing) {
+        const start = index * chunkSize;
+        const chunk = file.slice(start, Math.min(start + chunkSize, file.size));
+        await this.putChunk(uploadId, index, chunk);
+        received++;
+        if (onProgress) {
+          onProgress(Math.round((received * 100) / totalChunks), { chunk: received, totalChunks });
+        }
+      }
+
+      const response = await this.apiClient.post(`/api/files/uploads/${uploadId}/complete`);
+      localStorage.removeItem(resumeKey);
+
+      if (response.status === 202 && response.data?.fileId) {
+        return await this.waitForProcessing(response.data.fileId, onProcessing);
+      }
+      return {
+        success: true,
+        data: response.data,
+        message: response.data.message || 'File uploaded successfully'
+      };
+    } catch (error) {
+      console.error('Chunked upload error:', error);
+      return {
+        success: false,
+        error: error.response?.data?.message || 'Upload interrupted. Upload the same file again to resume.'
+      };
+    }
+  }
+
+  async resumeChunkedUpload(resumeKey) {
+    const uploadId = localStorage.getItem(resumeKey);
+    if (!uploadId) {
+      return null;
+    }
+    try {
+      const response = await this.apiClient.get(`/api/files/uploads/${uploadId}`);
+      // COMPLETING: every chunk is in, the completion was cut off and finishes when it is requested again
+      if (response.data.status === 'UPLOADING' || response.data.status === 'COMPLETING') {
+        return response.data;
+      }
+    } catch (error) {
+      console.warn('Could not resume chunked upload, starting over:', error);
+    }
+    localStorage.removeItem(resumeKey);
+    return null;
+  }
+
+  async putChunk(uploadId, index, chunk) {
+    for (let attempt = 1; ; attempt++) {
+      try {
+        return await this.apiClient.put(`/api/files/uploads/${uploadId}/chunks/${index}`, chunk, {
+          headers: { 'Content-Type': 'application/octet-stream' },
+          timeout: 120000
+        });
+      } catch (error) {
+        const status = error.response?.status;
+        // Client errors will not go away by resending
+        if (attempt >= CHUNK_RETRIES || (status >= 400 && status < 500)) {
+          throw error;
+        }
+        await new Promise((resolve) => setTimeout(resolve, 1000 * attempt));
+      }
+    }
+  }
+
+  async getFileStatus(fileId) {
+    const response = await this.apiClient.get(`/api/files/${fileId}/status`);
+    return response.data;
+  }
+
+  // Follows the job's progress events until it has finished, then reads the final status.
+  // Falls back to polling the status endpoint when the event stream is not available.
+  async waitForProcessing(fileId, onProcessing = null, intervalMs = 1000) {
+    try {
+      await this.followProcessingEvents(fileId, onProcessing);
+    } catch (error) {
+      console.warn('Progress events unavailable, polling status instead:', error);
+    }
+
+    for (;;) {
+      const status = await this.getFileStatus(fileId);
+      if (status.status === 'COMPLETED') {
+        return {
+          success: true,
+          data: status,
+          message: 'File uploaded and processed successfully'
+        };
+      }
+      if (status.status === 'DUPLICATE') {
+        return {
+          success: true,
+          data: status,
+          message: 'This file was already uploaded and processed'
+        };
+      }
+      if (status.status === 'FAILED') {
+        return {
+          success: false,
+          error: status.errorMessage || 'Processing failed. Please try again.'
+        };
+      }
+      await new Promise((resolve) => setTimeout(resolve, intervalMs));
+    }
+  }
+
+  // Reads the Server-Sent Events stream of an upload until the server closes it.
+  // fetch instead of EventSource, which cannot send the Authorization header.
+  async followProcessingEvents(fileId, onProcessing) {
+    const authStore = useAuthStore();
+    const response = await fetch(`/api/files/${fileId}/events`, {
+      headers: {
+        Authorization: `Bearer ${authStore.token}`,
+        Accept: 'text/event-stream'
+      }
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`Event stream unavailable (${response.status})`);
+    }
+
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) {
+        return;
+      }
+      buffer += value.replace(/\r\n/g, '\n');
+      let boundary;
+      while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+        const data = buffer.slice(0, boundary)
+          .split('\n')
+          .filter((line) => line.startsWith('data:'))
+          .map((line) => line.slice(5))
+          .join('\n');
+        buffer = buffer.slice(boundary + 2);
+        if (data && onProcessing) {
+          onProcessing(JSON.parse(data));
+        }
+      }
+    }
+  }
+
   async getUploadHistory() {
     try {
       // This would call your backend API to get upload history
@@ -65,19 +246,34 @@ class UploadService {
     }
   }
 
+  // Saves the CSV of rows that could not be imported (line, reason and raw record)
+  async downloadQuarantine(fileId) {
+    const response = await this.apiClient.get(`/api/files/${fileId}/quarantine`, {
+      responseType: 'blob'
+    });
+    const url = window.URL.createObjectURL(new Blob([response.data], { type: 'text/csv' }));
+    const link = document.createElement('a');
+    link.href = url;
+    link.setAttribute('download', `rejected-rows-${fileId}.csv`);
+    document.body.appendChild(link);
+    link.click();
+    document.body.removeChild(link);
+    window.URL.revokeObjectURL(url);
+  }
+
   // This client-side validation logic is excellent and remains unchanged.
   validateCSVFile(file) {
     const validTypes = ['text/csv', 'application/vnd.ms-excel'];
-    const maxSize = 10 * 1024 * 1024; // 10MB
+    const maxSize = MAX_FILE_SIZE;
 
     if (!file) {
       return { isValid: false, error: 'No file selected' };
     }
-    if (!validTypes.includes(file.type) && !file.name.endsWith('.csv')) {
-      return { isValid: false, error: 'Please select a valid CSV file' };
+    if (!validTypes.includes(file.type) && !isSupportedStatementFile(file)) {
+      return { isValid: false, error: 'Please select a valid CSV file (.csv, .csv.gz or .zip)' };
     }
     if (file.size > maxSize) {
-      return { isValid: false, error: 'File size must be less than 10MB' };
+      return { isValid: false, error: 'File size must be less than 2GB' };
     }
     return { isValid: true };
   }